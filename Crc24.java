@@ -1,5 +1,7 @@
 package ch.epfl.javions;
 
+import java.util.Objects;
+
 /**
  * La classe Crc24 est publique et finale représente un calculateur de CRC de 24 bits.
  *
@@ -15,7 +17,12 @@ public final class Crc24 {
     private static final int CRC_START = 0;
     private static final int CRC_ONE = 1;
     private static final int TABLE_START = 16;
+    private static final int SLICES = 8;
+    private static final int HALF_SLICES = 4;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int CRC_MASK = 0xFFFFFF;
     private final int[] table;
+    private final int[][] slices;
 
 
     //Méthode qui prend en arguments le générateur et le tableau d'octets dont le CRC24 doit être calculé en le retournant.
@@ -44,6 +51,21 @@ public final class Crc24 {
     }
 
 
+    // méthode qui construit les tables du calcul par tranches : slices[m][i] est le CRC de l'octet i suivi de m octets nuls.
+    private static int[][] buildSlices(int[] table) {
+        int[][] slices = new int[SLICES][];
+        slices[CRC_START] = table;
+        for (int m = CRC_ONE; m < SLICES; m++) {
+            slices[m] = new int[TAB_SIZE];
+            for (int i = CRC_START; i < TAB_SIZE; i++) {
+                int previous = slices[m - 1][i];
+                slices[m][i] = ((previous << BYTE_SIZE) & CRC_MASK) ^ table[previous >>> TABLE_START];
+            }
+        }
+        return slices;
+    }
+
+
     /**
      * Le constructeur public retourne un calculateur de CRC24 utilisant le générateur dont les 24
      * bits de poids faible sont ceux du générateur .
@@ -52,6 +74,7 @@ public final class Crc24 {
      */
     public Crc24(int generator) {
         table = buildTable(generator);
+        slices = buildSlices(table);
     }
 
     /**
@@ -61,18 +84,45 @@ public final class Crc24 {
      * @return le CRC24 du tableau donné
      */
     public int crc(byte[] bytes) {
+        return crc(bytes, CRC_START, bytes.length);
+    }
+
+    /**
+     * Méthode publique retournant le CRC24 de la portion donnée du tableau. Le calcul traite huit, puis quatre
+     * octets à la fois à l'aide de tables précalculées (slice-by-8 et slice-by-4), sans vérification dans la boucle.
+     *
+     * @param bytes  tableau d'octets
+     * @param offset l'index du premier octet de la portion
+     * @param length le nombre d'octets de la portion
+     * @return le CRC24 de la portion donnée du tableau
+     * @throws IndexOutOfBoundsException si la portion décrite par offset et length n'est pas comprise dans le tableau
+     */
+    public int crc(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        int[] t0 = slices[0], t1 = slices[1], t2 = slices[2], t3 = slices[3];
+        int[] t4 = slices[4], t5 = slices[5], t6 = slices[6], t7 = slices[7];
         int crc = CRC_START;
-        for (int i = CRC_START; i < bytes.length; i++) {
-            crc = ((crc << BYTE_SIZE) | Byte.toUnsignedInt(bytes[i])) ^ table[Bits.extractUInt(crc, TABLE_START, BYTE_SIZE)];
+        int i = offset;
+        int end = offset + length;
+        for (; i <= end - SLICES; i += SLICES) {
+            crc = t7[((crc >>> 16) ^ bytes[i]) & BYTE_MASK]
+                    ^ t6[((crc >>> 8) ^ bytes[i + 1]) & BYTE_MASK]
+                    ^ t5[(crc ^ bytes[i + 2]) & BYTE_MASK]
+                    ^ t4[bytes[i + 3] & BYTE_MASK]
+                    ^ t3[bytes[i + 4] & BYTE_MASK]
+                    ^ t2[bytes[i + 5] & BYTE_MASK]
+                    ^ t1[bytes[i + 6] & BYTE_MASK]
+                    ^ t0[bytes[i + 7] & BYTE_MASK];
         }
-        for (int j = CRC_START; j < LSB_24 / BYTE_SIZE; j++) {
-            crc = (crc << BYTE_SIZE) ^ table[Bits.extractUInt(crc, TABLE_START, BYTE_SIZE)];
+        for (; i <= end - HALF_SLICES; i += HALF_SLICES) {
+            crc = t3[((crc >>> 16) ^ bytes[i]) & BYTE_MASK]
+                    ^ t2[((crc >>> 8) ^ bytes[i + 1]) & BYTE_MASK]
+                    ^ t1[(crc ^ bytes[i + 2]) & BYTE_MASK]
+                    ^ t0[bytes[i + 3] & BYTE_MASK];
         }
-        return Bits.extractUInt(crc, CRC_START, LSB_24);
+        for (; i < end; i++) {
+            crc = ((crc << BYTE_SIZE) & CRC_MASK) ^ t0[((crc >>> 16) ^ bytes[i]) & BYTE_MASK];
+        }
+        return crc;
     }
 }
-
-
-
-
-
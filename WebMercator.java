@@ -2,6 +2,7 @@ package ch.epfl.javions;
 
 import static ch.epfl.javions.Math2.asinh;
 import static ch.epfl.javions.Units.Angle.TURN;
+import static ch.epfl.javions.Units.convertFrom;
 import static ch.epfl.javions.Units.convertTo;
 
 
@@ -40,4 +41,28 @@ public final class WebMercator{
         return zl1 * lat;
     }
 
+
+
+    /**
+     * Cette méthode est l'inverse de la méthode x
+     * @param zoomLevel niveau de zoom
+     * @param x la coordonnée x au niveau de zoom donné
+     * @return la longitude, en radians, correspondant à la coordonnée x au niveau de zoom donné
+     */
+    public static double longitude(int zoomLevel, double x){
+        return convertFrom(Math.scalb(x, -8 - zoomLevel) - 0.5, TURN);
+    }
+
+
+
+    /**
+     * Cette méthode est l'inverse de la méthode y
+     * @param zoomLevel niveau de zoom
+     * @param y la coordonnée y au niveau de zoom donné
+     * @return la latitude, en radians, correspondant à la coordonnée y au niveau de zoom donné
+     */
+    public static double latitude(int zoomLevel, double y){
+        return Math.atan(Math.sinh(convertFrom(0.5 - Math.scalb(y, -8 - zoomLevel), TURN)));
+    }
+
 }
@@ -71,11 +71,36 @@ public record AirbornePositionMessage (long timeStampNs, IcaoAddress icaoAddress
      * @return le message de positionnement en vol correspondant au message brut donné
      */
     public static AirbornePositionMessage of(RawMessage rawMessage) {
+        long payload = rawMessage.payload();
+        double altitude = altitude(payload);
+        if (Double.isNaN(altitude)) {
+            return null;
+        } else {
+            return new AirbornePositionMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), altitude,
+                    parity(payload), x(payload), y(payload));
+        }
+    }
+
+
+    // Cette méthode retourne la parité contenue dans l'attribut ME donné
+    static int parity(long payload) {
+        return extractUInt(payload, START_F, SIZE_F);
+    }
+
+    // Cette méthode retourne la longitude locale et normalisée contenue dans l'attribut ME donné
+    static double x(long payload) {
+        return extractUInt(payload, START0, SIZE_L) * POWER;
+    }
+
+    // Cette méthode retourne la latitude locale et normalisée contenue dans l'attribut ME donné
+    static double y(long payload) {
+        return extractUInt(payload, SIZE_L, SIZE_L) * POWER;
+    }
+
+    // Cette méthode retourne l'altitude en mètres contenue dans l'attribut ME donné, ou NaN si elle est invalide
+    static double altitude(long payload) {
         double altitude = 0;
-        int parite = extractUInt(rawMessage.payload(), START_F, SIZE_F);
-        double x = extractUInt(rawMessage.payload(), START0, SIZE_L) * POWER;
-        double y = extractUInt(rawMessage.payload(), SIZE_L, SIZE_L) * POWER;
-        int ALT = extractUInt(rawMessage.payload(), START_ALT, SIZE_ALT);
+        int ALT = extractUInt(payload, START_ALT, SIZE_ALT);
 
 
         if (Bits.testBit(ALT, INDEX)) {
@@ -99,12 +124,7 @@ public record AirbornePositionMessage (long timeStampNs, IcaoAddress icaoAddress
             }
 
         }
-        if (Double.isNaN(altitude)) {
-            return null;
-        } else {
-            altitude = Units.convert(altitude, FOOT, METER);
-            return new AirbornePositionMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), altitude, parite, x, y);
-        }
+        return Units.convert(altitude, FOOT, METER);
     }
 
 
@@ -31,15 +31,6 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
     private static final int SIZE_D = 1;
     private static final int START_V = 11;
     private static final int[] TYPECODE = {1, 2, 3, 4};
-    private static int VNS;
-    private static int DNS;
-    private static int VEW;
-    private static int DEW;
-    private static int SH;
-    private static int HDG;
-    private static int AS;
-    private static double vitesse = 0;
-    private static double direction = 0;
 
 
     /**
@@ -61,62 +52,73 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
      * @return le message de vitesse en vol correspondant au message brut donné.
      */
     public static AirborneVelocityMessage of(RawMessage rawMessage) {
-        int sousType = extractUInt(rawMessage.payload(), START_ST, SIZE_ST);
-        int bits22 = extractUInt(rawMessage.payload(), START_22, SIZE_22);
-        if (sousType != TYPECODE[0] && sousType != TYPECODE[1] && sousType != TYPECODE[2] && sousType != TYPECODE[3]) {
+        long payload = rawMessage.payload();
+        double vitesse = speed(payload);
+        double direction = trackOrHeading(payload);
+        if (Double.isNaN(vitesse) || Double.isNaN(direction)) {
             return null;
         }
+        return new AirborneVelocityMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), vitesse, direction);
+    }
+
+    // Cette méthode retourne la vitesse en m/s contenue dans l'attribut ME donné, ou NaN si elle ne peut pas être
+    // déterminée ou si le sous-type est invalide.
+    static double speed(long payload) {
+        int sousType = extractUInt(payload, START_ST, SIZE_ST);
+        int bits22 = extractUInt(payload, START_22, SIZE_22);
         if (sousType == TYPECODE[0] || sousType == TYPECODE[1]) {
-            groundDisplacement(bits22);
+            // déplacement par rapport au sol
+            int VNS = (extractUInt(bits22, 0, SIZE_V)) - 1;
+            int VEW = (extractUInt(bits22, START_V, SIZE_V)) - 1;
             if (VEW == -1 || VNS == -1) {
-                return null;
-            }if (DNS == 1) {
-                VNS = -VNS;
-            }if (DEW == 1) {
-                VEW = -VEW;
-            }
-            groundCalcul(sousType);
-        } else {
-            airDisplacement(bits22);
-            if (SH == 1) {
-                double capTours = HDG / Math.pow(2, 10); //direction
-                direction = convert(capTours, TURN, RADIAN);
+                return Double.NaN;
             }
-            if (SH == 0 || AS == -1) {
-                return null; //impossible de determiner la direction
+            double vitesse = hypot(VNS, VEW);
+            return (sousType == TYPECODE[0]) ? convert(vitesse, KNOT, METRE_PER_SECOND) :
+                    (convert(vitesse, KNOT, METRE_PER_SECOND)) * 4;
+        } else if (sousType == TYPECODE[2] || sousType == TYPECODE[3]) {
+            // déplacement dans l'air
+            int AS = (extractUInt(bits22, 0, SIZE_V)) - 1;
+            if (AS == -1) {
+                return Double.NaN;
             }
-            vitesse = (sousType == TYPECODE[2]) ? convert(AS, KNOT, METRE_PER_SECOND) : (convert(AS, KNOT, METRE_PER_SECOND)) * 4;
+            return (sousType == TYPECODE[2]) ? convert(AS, KNOT, METRE_PER_SECOND) : (convert(AS, KNOT, METRE_PER_SECOND)) * 4;
         }
-        return new AirborneVelocityMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), vitesse, direction);
-    }
-
-    // Cette méthode permet de trouver les attributs du déplacement par rapport au sol.
-    private static void groundDisplacement(int b) {
-        VNS = (extractUInt(b, 0, SIZE_V)) - 1;
-        DNS = extractUInt(b, SIZE_V, SIZE_D);
-        VEW = (extractUInt(b, START_V, SIZE_V)) - 1;
-        DEW = extractUInt(b, START_22, SIZE_D);
-    }
-
-    // Cette méthode permet de trouver les attributs du déplacement dans l'air.
-    private static void airDisplacement(int b) {
-        SH = extractUInt(b, START_22, SIZE_D);
-        HDG = extractUInt(b, START_V, SIZE_V);
-        AS = (extractUInt(b, 0, SIZE_V)) - 1;
+        return Double.NaN;
     }
 
-
-    // Cette méthode permet de calculer la vitesse et la direction du déplacement au sol.
-    private static void groundCalcul(int sousType){
-        vitesse = hypot(VNS, VEW);
-        direction = atan2(VEW, VNS); //en radian
-        if (direction < 0) {
-            direction += (2 * Math.PI);
-        }
-        if (sousType == TYPECODE[0]) {
-            vitesse = convert(vitesse, KNOT, METRE_PER_SECOND);
-        } else {
-            vitesse = (convert(vitesse, KNOT, METRE_PER_SECOND)) * 4;
+    // Cette méthode retourne la direction en radians contenue dans l'attribut ME donné, ou NaN si elle ne peut pas
+    // être déterminée ou si le sous-type est invalide.
+    static double trackOrHeading(long payload) {
+        int sousType = extractUInt(payload, START_ST, SIZE_ST);
+        int bits22 = extractUInt(payload, START_22, SIZE_22);
+        if (sousType == TYPECODE[0] || sousType == TYPECODE[1]) {
+            // déplacement par rapport au sol
+            int VNS = (extractUInt(bits22, 0, SIZE_V)) - 1;
+            int DNS = extractUInt(bits22, SIZE_V, SIZE_D);
+            int VEW = (extractUInt(bits22, START_V, SIZE_V)) - 1;
+            int DEW = extractUInt(bits22, START_22, SIZE_D);
+            if (VEW == -1 || VNS == -1) {
+                return Double.NaN;
+            }
+            if (DNS == 1) {
+                VNS = -VNS;
+            }
+            if (DEW == 1) {
+                VEW = -VEW;
+            }
+            double direction = atan2(VEW, VNS); //en radian
+            return (direction < 0) ? direction + (2 * Math.PI) : direction;
+        } else if (sousType == TYPECODE[2] || sousType == TYPECODE[3]) {
+            // déplacement dans l'air
+            int SH = extractUInt(bits22, START_22, SIZE_D);
+            int HDG = extractUInt(bits22, START_V, SIZE_V);
+            if (SH == 0) {
+                return Double.NaN; //impossible de determiner la direction
+            }
+            double capTours = HDG / Math.pow(2, 10); //direction
+            return convert(capTours, TURN, RADIAN);
         }
+        return Double.NaN;
     }
-}
\ No newline at end of file
+}
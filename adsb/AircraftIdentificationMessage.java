@@ -46,12 +46,27 @@ public record AircraftIdentificationMessage(long timeStampNs, IcaoAddress icaoAd
      */
 
     public static AircraftIdentificationMessage of(RawMessage rawMessage) {
-        StringBuilder string = new StringBuilder();
+        long payload = rawMessage.payload();
+        CallSign callSign = callSign(payload);
+        if (callSign == null) {
+            return null;
+        }
+        return new AircraftIdentificationMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), category(payload), callSign);
+    }
+
 
-        int CA = extractUInt(rawMessage.payload(), START_CA, SIZE_CA);
-        int TC = (14 - rawMessage.typeCode(rawMessage.payload())) << 4;
+    // Cette méthode retourne la catégorie d'aéronef contenue dans l'attribut ME donné
+    static int category(long payload) {
+        int CA = extractUInt(payload, START_CA, SIZE_CA);
+        int TC = (14 - RawMessage.typeCode(payload)) << 4;
+        return TC | CA;
+    }
+
+    // Cette méthode retourne l'indicatif contenu dans l'attribut ME donné, ou null si l'un de ses caractères est invalide
+    static CallSign callSign(long payload) {
+        StringBuilder string = new StringBuilder();
         for (int j = 0; j < MSG_LENGTH; j = j + BITS_NUMBER) {
-            int msg = extractUInt(rawMessage.payload(), j, BITS_NUMBER);
+            int msg = extractUInt(payload, j, BITS_NUMBER);
             if ((msg < BOUND_START || (msg > BOUND26 && msg < START_CA && msg != BOUND32) || msg > BOUND57)) {
                 return null;
             } else if (msg <= BOUND26) {
@@ -62,8 +77,7 @@ public record AircraftIdentificationMessage(long timeStampNs, IcaoAddress icaoAd
                 string.append(tabChiffre[msg]);
             }
         }
-
-        return new AircraftIdentificationMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), TC | CA, new CallSign(string.reverse().toString()));
+        return new CallSign(string.reverse().toString());
     }
 
 
@@ -0,0 +1,205 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.Preconditions;
+
+/**
+ * La classe FlyweightMessage publique et finale représente une vue réutilisable sur un message ADS-B, stocké sous la
+ * forme de deux valeurs de type long : son en-tête (attributs DF et CA et adresse OACI) et son attribut ME.
+ * Ses accesseurs décodent les attributs à la demande, sans allouer d'objets, ce qui permet de traiter un débit de
+ * messages élevé sans solliciter le ramasse-miettes. Une même instance est destinée à être remplie message après
+ * message, par exemple par AdsbDemodulator.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class FlyweightMessage {
+    private static final int BYTE_SIZE = 8;
+    private static final int HEADER_BYTES = 4;
+    private static final int START_DF = 27;
+    private static final int SIZE_DF = 5;
+    private static final int ICAO_MASK = 0xFFFFFF;
+    private long timeStampNs;
+    private long header;
+    private long payload;
+
+
+    /**
+     * Cette méthode remplit la vue avec les valeurs données
+     *
+     * @param timeStampNs l'horodatage du message, en nanosecondes
+     * @param header      l'en-tête du message (ses quatre premiers octets)
+     * @param payload     l'attribut ME du message
+     * @throws IllegalArgumentException si l'horodatage est strictement négatif
+     */
+    public void set(long timeStampNs, long header, long payload) {
+        Preconditions.checkArgument(timeStampNs >= 0);
+        this.timeStampNs = timeStampNs;
+        this.header = header;
+        this.payload = payload;
+    }
+
+    /**
+     * Cette méthode remplit la vue avec le message brut donné
+     *
+     * @param rawMessage le message brut
+     */
+    public void set(RawMessage rawMessage) {
+        set(rawMessage.timeStampNs(), rawMessage.header(), rawMessage.payload());
+    }
+
+    /**
+     * Cette méthode remplit la vue avec les octets d'un message, sans les copier
+     *
+     * @param timeStampNs l'horodatage du message, en nanosecondes
+     * @param bytes       les octets du message
+     * @throws IllegalArgumentException si l'horodatage est strictement négatif, ou si le tableau ne contient pas
+     *                                  RawMessage.LENGTH octets
+     */
+    public void set(long timeStampNs, byte[] bytes) {
+        Preconditions.checkArgument(bytes.length == RawMessage.LENGTH);
+        long h = 0;
+        long p = 0;
+        for (int i = 0; i < HEADER_BYTES; i++) {
+            h = (h << BYTE_SIZE) | Byte.toUnsignedLong(bytes[i]);
+        }
+        for (int i = HEADER_BYTES; i < RawMessage.LENGTH - 3; i++) {
+            p = (p << BYTE_SIZE) | Byte.toUnsignedLong(bytes[i]);
+        }
+        set(timeStampNs, h, p);
+    }
+
+    /**
+     * @return l'horodatage du message, en nanosecondes
+     */
+    public long timeStampNs() {
+        return timeStampNs;
+    }
+
+    /**
+     * @return l'en-tête du message
+     */
+    public long header() {
+        return header;
+    }
+
+    /**
+     * @return l'attribut ME du message
+     */
+    public long payload() {
+        return payload;
+    }
+
+    /**
+     * @return le format du message, c.-à-d. son attribut DF
+     */
+    public int downLinkFormat() {
+        return (int) (header >>> START_DF) & ((1 << SIZE_DF) - 1);
+    }
+
+    /**
+     * @return les 24 bits de l'adresse OACI de l'expéditeur du message
+     */
+    public int icaoAddress() {
+        return (int) header & ICAO_MASK;
+    }
+
+    /**
+     * @return le code de type du message
+     */
+    public int typeCode() {
+        return RawMessage.typeCode(payload);
+    }
+
+    /**
+     * @return vrai ssi le message est un message d'identification
+     */
+    public boolean isIdentification() {
+        return MessageParser.isIdentification(typeCode());
+    }
+
+    /**
+     * @return vrai ssi le message est un message de positionnement en vol
+     */
+    public boolean isAirbornePosition() {
+        return MessageParser.isAirbornePosition(typeCode());
+    }
+
+    /**
+     * @return vrai ssi le message est un message de vitesse en vol
+     */
+    public boolean isAirborneVelocity() {
+        return MessageParser.isAirborneVelocity(typeCode());
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message d'identification
+     *
+     * @return la catégorie d'aéronef de l'expéditeur
+     */
+    public int category() {
+        return AircraftIdentificationMessage.category(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message d'identification ; contrairement aux autres, il alloue l'indicatif
+     *
+     * @return l'indicatif de l'expéditeur, ou null si l'un de ses caractères est invalide
+     */
+    public CallSign callSign() {
+        return AircraftIdentificationMessage.callSign(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message de positionnement en vol
+     *
+     * @return l'altitude de l'aéronef en mètres, ou NaN si elle est invalide
+     */
+    public double altitude() {
+        return AirbornePositionMessage.altitude(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message de positionnement en vol
+     *
+     * @return la parité du message (0 s'il est pair, 1 s'il est impair)
+     */
+    public int parity() {
+        return AirbornePositionMessage.parity(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message de positionnement en vol
+     *
+     * @return la longitude locale et normalisée de l'aéronef
+     */
+    public double x() {
+        return AirbornePositionMessage.x(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message de positionnement en vol
+     *
+     * @return la latitude locale et normalisée de l'aéronef
+     */
+    public double y() {
+        return AirbornePositionMessage.y(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message de vitesse en vol
+     *
+     * @return la vitesse de l'aéronef en m/s, ou NaN si elle ne peut pas être déterminée
+     */
+    public double speed() {
+        return AirborneVelocityMessage.speed(payload);
+    }
+
+    /**
+     * Cet accesseur n'a de sens que pour un message de vitesse en vol
+     *
+     * @return la direction de déplacement de l'aéronef en radians, ou NaN si elle ne peut pas être déterminée
+     */
+    public double trackOrHeading() {
+        return AirborneVelocityMessage.trackOrHeading(payload);
+    }
+}
@@ -31,22 +31,36 @@ public final class MessageParser {
      * @return l'instance d'un des trois types de messages correspondant au message brut donné.
      */
     public static Message parse(RawMessage rawMessage) {
-
-        if (rawMessage.typeCode() == CODE_TYPE_ID1 || rawMessage.typeCode() == CODE_TYPE_ID2 ||
-                rawMessage.typeCode() == CODE_TYPE_ID3 || rawMessage.typeCode() == CODE_TYPE_ID4) {
+        int typeCode = rawMessage.typeCode();
+        if (isIdentification(typeCode)) {
             return AircraftIdentificationMessage.of(rawMessage);
 
-        } else if ((rawMessage.typeCode() >= CODE_TYPE_POS1 && rawMessage.typeCode() <= CODE_TYPE_POS2) ||
-                (rawMessage.typeCode() >= CODE_TYPE_POS3 && rawMessage.typeCode() <= CODE_TYPE_POS4)) {
+        } else if (isAirbornePosition(typeCode)) {
             return (AirbornePositionMessage.of(rawMessage));
 
-        } else if (rawMessage.typeCode() == CODE_TYPE_VELOCITY) {
+        } else if (isAirborneVelocity(typeCode)) {
             return (AirborneVelocityMessage.of(rawMessage));
 
         } else return null;
     }
 
 
+    // Ces méthodes déterminent le type de message correspondant au code de type donné
+    static boolean isIdentification(int typeCode) {
+        return typeCode == CODE_TYPE_ID1 || typeCode == CODE_TYPE_ID2 ||
+                typeCode == CODE_TYPE_ID3 || typeCode == CODE_TYPE_ID4;
+    }
+
+    static boolean isAirbornePosition(int typeCode) {
+        return (typeCode >= CODE_TYPE_POS1 && typeCode <= CODE_TYPE_POS2) ||
+                (typeCode >= CODE_TYPE_POS3 && typeCode <= CODE_TYPE_POS4);
+    }
+
+    static boolean isAirborneVelocity(int typeCode) {
+        return typeCode == CODE_TYPE_VELOCITY;
+    }
+
+
     /**
      * Constructeur privé de la classe non instantiable.
      */
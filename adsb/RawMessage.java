@@ -6,8 +6,6 @@ import ch.epfl.javions.Crc24;
 import ch.epfl.javions.Preconditions;
 import ch.epfl.javions.aircraft.IcaoAddress;
 
-import java.util.HexFormat;
-
 
 /**
  * L'enregistrement RawMessage du sous-paquetage adsb, public, représente un message ADS-B.
@@ -29,8 +27,25 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
     private static final int START_ICAO = 1;
     private static final int START_ME = 4;
     private static final int START_CRC = 11;
-    private static final int DIGITS = 6;
+    private static final int BYTE_SIZE = 8;
     public static final int LENGTH = 14;
+    // table ouverte associant le syndrome d'une erreur d'un seul bit (jamais nul) à la position de ce bit
+    private static final int ERROR_TABLE_BITS = 8;
+    private static final int GOLDEN_RATIO = 0x9E3779B1;
+    private static final int[] ERROR_SYNDROMES = new int[1 << ERROR_TABLE_BITS];
+    private static final byte[] ERROR_BITS = new byte[1 << ERROR_TABLE_BITS];
+
+    static {
+        for (int bit = SIZE; bit < LENGTH * BYTE_SIZE; bit++) {
+            byte[] error = new byte[LENGTH];
+            error[bit / BYTE_SIZE] = (byte) (1 << (BYTE_SIZE - 1 - bit % BYTE_SIZE));
+            int syndrome = crc24.crc(error);
+            int slot = errorSlot(syndrome);
+            while (ERROR_SYNDROMES[slot] != 0) slot = (slot + 1) & (ERROR_SYNDROMES.length - 1);
+            ERROR_SYNDROMES[slot] = syndrome;
+            ERROR_BITS[slot] = (byte) bit;
+        }
+    }
 
 
 
@@ -45,6 +60,46 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
     public static RawMessage of(long timeStampNs, byte[] bytes) {
         return (crc24.crc(bytes) == 0) ? new RawMessage(timeStampNs, new ByteString(bytes)) : null;
     }
+    /**
+     * Cette méthode retourne le syndrome des octets donnés, c.-à-d. leur CRC24, qui vaut 0 ssi le message est valide
+     *
+     * @param bytes les octets du message
+     * @return le syndrome des octets donnés
+     */
+    public static int syndrome(byte[] bytes) {
+        return crc24.crc(bytes);
+    }
+
+    /**
+     * Cette méthode corrige en place une erreur d'un seul bit dans un message DF17, en cherchant la position du bit
+     * erroné dans une table précalculée associant à chaque syndrome la position de l'erreur qui le produit.
+     * L'attribut DF est examiné avant la table, afin que la plupart des candidats soient écartés sans recherche,
+     * et ses bits ne sont jamais corrigés.
+     *
+     * @param bytes    les octets du message, modifiés si une erreur est corrigée
+     * @param syndrome le syndrome des octets, tel que retourné par syndrome
+     * @return vrai ssi une erreur a été corrigée
+     */
+    public static boolean correctSingleBitError(byte[] bytes, int syndrome) {
+        if (bytes.length != LENGTH || size(bytes[START_DF]) != LENGTH || syndrome == 0) {
+            return false;
+        }
+        for (int slot = errorSlot(syndrome); ERROR_SYNDROMES[slot] != 0;
+             slot = (slot + 1) & (ERROR_SYNDROMES.length - 1)) {
+            if (ERROR_SYNDROMES[slot] == syndrome) {
+                int bit = ERROR_BITS[slot];
+                bytes[bit / BYTE_SIZE] ^= (byte) (1 << (BYTE_SIZE - 1 - bit % BYTE_SIZE));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Cette méthode retourne la première case de la table des erreurs à examiner pour le syndrome donné
+    private static int errorSlot(int syndrome) {
+        return (syndrome * GOLDEN_RATIO) >>> (Integer.SIZE - ERROR_TABLE_BITS);
+    }
+
     /**
      * Cette méthode retourne la taille d'un message dont le premier octet est celui donné, et qui vaut LENGTH si l'attribut DF contenu dans ce premier octet vaut 17,
      * et 0 sinon indique que le message n'est pas d'un type connu
@@ -90,8 +145,18 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
      * @return l'adresse OACI de l'expéditeur du message
      */
     public IcaoAddress icaoAddress() {
-        return new IcaoAddress(HexFormat.of().withUpperCase().toHexDigits(bytes.bytesInRange(START_ICAO, START_ME), DIGITS));
+        return IcaoAddress.of((int) bytes.bytesInRange(START_ICAO, START_ME));
     }
+    /**
+     * Cette méthode retourne l'en-tête du message : ses quatre premiers octets, contenant les attributs DF et CA
+     * ainsi que l'adresse OACI
+     *
+     * @return l'en-tête du message
+     */
+    public long header() {
+        return bytes.bytesInRange(START_DF, START_ME);
+    }
+
     /**
      * Cette méthode retourne l'attribut ME du message
      *
@@ -2,6 +2,7 @@ package ch.epfl.javions.aircraft;
 
 import java.io.*;
 import java.net.URLDecoder;
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.zip.ZipFile;
 
@@ -18,6 +19,9 @@ public final class AircraftDatabase {
     private static final int BEGIN_INDEX= 4;
     private static final int LIMIT = -2;
     private final String fileName;
+    private final AircraftIndex index;
+    private final MappedAircraftIndex mapped;
+    private final long loadTimeNs;
 
 
 
@@ -29,6 +33,80 @@ public final class AircraftDatabase {
      */
     public AircraftDatabase(String fileName) {
         this.fileName = Objects.requireNonNull(fileName);
+        this.index = null;
+        this.mapped = null;
+        this.loadTimeNs = 0;
+    }
+
+    // Le constructeur privé de la base de données indexée, en mémoire ou par projection d'un fichier binaire
+    private AircraftDatabase(String fileName, AircraftIndex index, MappedAircraftIndex mapped, long loadTimeNs) {
+        this.fileName = fileName;
+        this.index = index;
+        this.mapped = mapped;
+        this.loadTimeNs = loadTimeNs;
+    }
+
+    /**
+     * Cette méthode lit une seule fois la totalité de l'archive de nom donné et retourne une base de données
+     * servant ensuite toutes ses recherches depuis un index en mémoire, sans accès au disque
+     * @param fileName le nom de l'archive de la base de données mictronics
+     * @return la base de données indexée en mémoire
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static AircraftDatabase loadIndexed(String fileName) throws IOException {
+        Objects.requireNonNull(fileName);
+        long start = System.nanoTime();
+        try (ZipFile zipFile = new ZipFile(fileName)) {
+            AircraftIndex index = AircraftIndex.load(zipFile);
+            return new AircraftDatabase(fileName, index, null, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Cette méthode projette en mémoire le fichier binaire de nom donné, produit par AircraftDatabaseCompiler, et
+     * retourne une base de données servant ses recherches directement depuis cette projection. Rien n'est lu au
+     * démarrage, et les pages du fichier sont partagées entre tous les processus qui l'utilisent.
+     * @param fileName le nom du fichier binaire
+     * @return la base de données servie depuis ce fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie, ou si le fichier n'a pas le format attendu
+     */
+    public static AircraftDatabase openMapped(String fileName) throws IOException {
+        Objects.requireNonNull(fileName);
+        long start = System.nanoTime();
+        MappedAircraftIndex mapped = MappedAircraftIndex.open(Path.of(fileName));
+        return new AircraftDatabase(fileName, null, mapped, System.nanoTime() - start);
+    }
+
+    /**
+     * @return vrai si et seulement si la base de données est indexée, en mémoire ou par projection
+     */
+    public boolean isIndexed() {
+        return index != null || mapped != null;
+    }
+
+    /**
+     * @return le nombre d'aéronefs de l'index, ou 0 si la base de données n'est pas indexée
+     */
+    public int indexedCount() {
+        if (mapped != null) return mapped.size();
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * @return la taille approximative de l'index en mémoire, ou celle du fichier projeté, en octets, ou 0 si la
+     * base de données n'est pas indexée
+     */
+    public long indexSizeBytes() {
+        if (mapped != null) return mapped.sizeInBytes();
+        return index == null ? 0 : index.sizeInBytes();
+    }
+
+    /**
+     * @return la durée de construction de l'index, en nanosecondes, ou 0 si la base de données n'est pas
+     * indexée
+     */
+    public long loadTimeNs() {
+        return loadTimeNs;
     }
 
     /**
@@ -39,6 +117,11 @@ public final class AircraftDatabase {
      */
     public AircraftData get(IcaoAddress address) throws IOException {
         Objects.requireNonNull(address);
+        if (mapped != null) return mapped.get(address.value());
+        if (index != null) {
+            String columns = index.columns(address.value());
+            return columns == null ? null : data(columns.split(",", LIMIT), 0);
+        }
         String d= Objects.requireNonNull(getClass().getResource("/aircraft.zip")).getFile();
         d= URLDecoder.decode(d,UTF_8);
         try (ZipFile fichier = new ZipFile(d);
@@ -49,12 +132,7 @@ public final class AircraftDatabase {
             while ((l = buffer.readLine()) != null) {
                 String[] columns = l.split(",",LIMIT);
                 if (l.startsWith(address.string())) {
-                    AircraftRegistration registration =new AircraftRegistration(columns[1]);
-                    AircraftTypeDesignator typeDesignator =new AircraftTypeDesignator(columns[2]);
-                    AircraftDescription description =new AircraftDescription(columns[4]);
-                    WakeTurbulenceCategory category = WakeTurbulenceCategory.of(columns[5]);
-                    AircraftData data =new AircraftData(registration, typeDesignator, columns[3], description,category);
-                    return data;
+                    return data(columns, 1);
                 } else if (columns[0].compareTo(address.getString()) > 0) {
                     return null;
                 }
@@ -64,10 +142,14 @@ public final class AircraftDatabase {
 
     }
 
-}
-
-
-
-
-
+    // Cette méthode construit les données d'un aéronef à partir des colonnes d'une ligne, la colonne d'index
+    // donné étant son immatriculation
+    private static AircraftData data(String[] columns, int first) {
+        AircraftRegistration registration =new AircraftRegistration(columns[first]);
+        AircraftTypeDesignator typeDesignator =new AircraftTypeDesignator(columns[first + 1]);
+        AircraftDescription description =new AircraftDescription(columns[first + 3]);
+        WakeTurbulenceCategory category = WakeTurbulenceCategory.of(columns[first + 4]);
+        return new AircraftData(registration, typeDesignator, columns[first + 2], description,category);
+    }
 
+}
@@ -0,0 +1,109 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.javions.Preconditions;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * La classe AircraftDatabaseCompiler publique et non instanciable compile l'archive de la base de données
+ * mictronics en un unique fichier binaire, que AircraftDatabase peut ensuite servir directement depuis une
+ * projection en mémoire (voir MappedAircraftIndex pour le format de ce fichier).
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class AircraftDatabaseCompiler {
+    private static final int LIMIT = -2;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+    private static final int CATEGORY_COLUMN = 4;
+
+    /**
+     * La méthode main compile l'archive dont le nom est le premier argument dans le fichier dont le nom est le second
+     *
+     * @param args le nom de l'archive mictronics et celui du fichier binaire à produire
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static void main(String[] args) throws IOException {
+        Preconditions.checkArgument(args.length == 2);
+        int count = compile(Path.of(args[0]), Path.of(args[1]));
+        System.out.printf("%d aéronefs compilés dans %s%n", count, args[1]);
+    }
+
+    /**
+     * Cette méthode compile l'archive mictronics donnée dans le fichier binaire donné. Si une adresse OACI figure
+     * plusieurs fois dans l'archive, seule sa première occurrence est conservée.
+     *
+     * @param zipFile l'archive de la base de données mictronics
+     * @param output  le fichier binaire à produire
+     * @return le nombre d'aéronefs compilés
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static int compile(Path zipFile, Path output) throws IOException {
+        AircraftIndex index;
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            index = AircraftIndex.load(zip);
+        }
+
+        int[] icaos = new int[index.size()];
+        int[] refs = new int[index.size() * MappedAircraftIndex.STRING_COLUMNS];
+        byte[] categories = new byte[index.size()];
+        Map<String, Integer> poolRefs = new HashMap<>();
+        ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        DataOutputStream pool = new DataOutputStream(poolBytes);
+
+        int count = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if (count > 0 && index.icaoAt(i) == icaos[count - 1]) continue;
+            String[] columns = index.columnsAt(i).split(",", LIMIT);
+            icaos[count] = index.icaoAt(i);
+            for (int c = 0; c < MappedAircraftIndex.STRING_COLUMNS; c++) {
+                refs[count * MappedAircraftIndex.STRING_COLUMNS + c] = intern(columns[c], poolRefs, pool);
+            }
+            categories[count] = (byte) WakeTurbulenceCategory.of(columns[CATEGORY_COLUMN]).ordinal();
+            count += 1;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(MappedAircraftIndex.MAGIC);
+            out.writeInt(MappedAircraftIndex.VERSION);
+            out.writeInt(count);
+            out.writeInt(pool.size());
+            for (int i = 0; i < count; i++) out.writeInt(icaos[i]);
+            for (int i = 0; i < count * MappedAircraftIndex.STRING_COLUMNS; i++) out.writeInt(refs[i]);
+            out.write(Arrays.copyOf(categories, count));
+            poolBytes.writeTo(out);
+        }
+        return count;
+    }
+
+    // Cette méthode retourne la position de la chaîne donnée dans la réserve, en l'y ajoutant si elle n'y est pas
+    private static int intern(String string, Map<String, Integer> poolRefs, DataOutputStream pool)
+            throws IOException {
+        Integer ref = poolRefs.get(string);
+        if (ref != null) return ref;
+        byte[] bytes = string.getBytes(UTF_8);
+        Preconditions.checkArgument(bytes.length <= MAX_STRING_LENGTH);
+        int newRef = pool.size();
+        pool.writeShort(bytes.length);
+        pool.write(bytes);
+        poolRefs.put(string, newRef);
+        return newRef;
+    }
+
+    /**
+     * Constructeur privé de la classe non instanciable.
+     */
+    private AircraftDatabaseCompiler() {
+    }
+}
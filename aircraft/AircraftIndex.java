@@ -0,0 +1,164 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.javions.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * La classe AircraftIndex représente l'index en mémoire de la base de données mictronics, construit en lisant une
+ * seule fois la totalité de l'archive. Les adresses OACI y sont stockées dans un tableau d'entiers trié, et les
+ * autres colonnes de chaque ligne dans un unique tableau d'octets : une recherche est une simple recherche
+ * dichotomique, sans verrou ni accès au disque. Une fois construit, l'index n'est plus modifié et peut donc être
+ * lu par plusieurs fils d'exécution à la fois.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class AircraftIndex {
+    private static final String EXTENSION = ".csv";
+    private static final int ICAO_LENGTH = 6;
+    private static final int HEX_RADIX = 16;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int INITIAL_POOL_SIZE = 1 << 20;
+
+    private final int[] icaos;
+    private final int[] starts;
+    private final int[] ends;
+    private final byte[] pool;
+
+    // Le constructeur privé de la classe, qui reçoit les tableaux déjà triés par adresse OACI
+    private AircraftIndex(int[] icaos, int[] starts, int[] ends, byte[] pool) {
+        this.icaos = icaos;
+        this.starts = starts;
+        this.ends = ends;
+        this.pool = pool;
+    }
+
+    /**
+     * Cette méthode construit l'index à partir de toutes les entrées CSV de l'archive donnée
+     *
+     * @param zipFile l'archive de la base de données mictronics
+     * @return l'index de cette archive
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    static AircraftIndex load(ZipFile zipFile) throws IOException {
+        int count = 0;
+        int[] icaos = new int[INITIAL_CAPACITY];
+        int[] starts = new int[INITIAL_CAPACITY];
+        int[] ends = new int[INITIAL_CAPACITY];
+        byte[] pool = new byte[INITIAL_POOL_SIZE];
+        int poolSize = 0;
+
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.getName().endsWith(EXTENSION)) continue;
+            byte[] content;
+            try (InputStream stream = zipFile.getInputStream(entry)) {
+                content = stream.readAllBytes();
+            }
+            int lineStart = 0;
+            while (lineStart < content.length) {
+                int lineEnd = lineStart;
+                while (lineEnd < content.length && content[lineEnd] != '\n') lineEnd += 1;
+                int next = lineEnd + 1;
+                if (lineEnd > lineStart && content[lineEnd - 1] == '\r') lineEnd -= 1;
+                if (lineEnd - lineStart > ICAO_LENGTH) {
+                    if (count == icaos.length) {
+                        icaos = Arrays.copyOf(icaos, 2 * count);
+                        starts = Arrays.copyOf(starts, 2 * count);
+                        ends = Arrays.copyOf(ends, 2 * count);
+                    }
+                    int tailStart = lineStart + ICAO_LENGTH + 1;
+                    int tail = lineEnd - tailStart;
+                    if (poolSize + tail > pool.length) {
+                        pool = Arrays.copyOf(pool, Math.max(2 * pool.length, poolSize + tail));
+                    }
+                    icaos[count] = parseIcao(content, lineStart);
+                    System.arraycopy(content, tailStart, pool, poolSize, tail);
+                    starts[count] = poolSize;
+                    ends[count] = poolSize + tail;
+                    poolSize += tail;
+                    count += 1;
+                }
+                lineStart = next;
+            }
+        }
+
+        // tri des lignes par adresse OACI, l'adresse occupant les 32 bits de poids fort de chaque clé
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) keys[i] = ((long) icaos[i] << Integer.SIZE) | i;
+        Arrays.sort(keys);
+        int[] sortedIcaos = new int[count];
+        int[] sortedStarts = new int[count];
+        int[] sortedEnds = new int[count];
+        for (int i = 0; i < count; i++) {
+            int row = (int) keys[i];
+            sortedIcaos[i] = (int) (keys[i] >>> Integer.SIZE);
+            sortedStarts[i] = starts[row];
+            sortedEnds[i] = ends[row];
+        }
+        return new AircraftIndex(sortedIcaos, sortedStarts, sortedEnds, Arrays.copyOf(pool, poolSize));
+    }
+
+    // Cette méthode retourne la valeur de l'adresse OACI formée des six chiffres hexadécimaux commençant à
+    // l'index donné
+    private static int parseIcao(byte[] content, int start) {
+        int value = 0;
+        for (int i = start; i < start + ICAO_LENGTH; i++) {
+            int digit = Character.digit(content[i], HEX_RADIX);
+            Preconditions.checkArgument(digit >= 0);
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Cette méthode retourne les colonnes, séparées par des virgules, de la ligne associée à l'adresse donnée,
+     * l'adresse elle-même exceptée
+     *
+     * @param icao les 24 bits de l'adresse OACI
+     * @return les autres colonnes de la ligne, ou null si l'adresse ne figure pas dans l'index
+     */
+    String columns(int icao) {
+        int i = Arrays.binarySearch(icaos, icao);
+        return i < 0 ? null : columnsAt(i);
+    }
+
+    /**
+     * @param i l'index d'une ligne, dans l'ordre croissant des adresses OACI
+     * @return les 24 bits de l'adresse OACI de cette ligne
+     */
+    int icaoAt(int i) {
+        return icaos[i];
+    }
+
+    /**
+     * @param i l'index d'une ligne, dans l'ordre croissant des adresses OACI
+     * @return les colonnes de cette ligne, l'adresse OACI exceptée
+     */
+    String columnsAt(int i) {
+        return new String(pool, starts[i], ends[i] - starts[i], UTF_8);
+    }
+
+    /**
+     * @return le nombre d'aéronefs de l'index
+     */
+    int size() {
+        return icaos.length;
+    }
+
+    /**
+     * @return la taille approximative de l'index en mémoire, en octets
+     */
+    long sizeInBytes() {
+        return (long) Integer.BYTES * 3 * icaos.length + pool.length;
+    }
+}
@@ -0,0 +1,174 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.javions.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * La classe AircraftMetadataService publique et finale effectue les recherches dans la base de données des aéronefs
+ * de manière asynchrone, sur un nombre borné de fils d'exécution dédiés, afin que ni l'interface graphique ni le
+ * moteur d'ingestion n'attendent la base de données. Les données trouvées sont gardées dans un cache de taille
+ * bornée, dont les entrées les moins récemment utilisées sont évincées en premier, et les adresses inconnues de la
+ * base de données dans un second cache, de même taille. Deux recherches simultanées de la même adresse partagent
+ * le même résultat, et le nombre de recherches en attente d'un fil est lui aussi borné.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class AircraftMetadataService implements AutoCloseable {
+    public static final int DEFAULT_THREADS = 2;
+    public static final int DEFAULT_CACHE_SIZE = 1 << 12;
+    // nombre maximal de recherches en attente d'un fil, au-delà duquel les suivantes sont refusées
+    private static final int QUEUE_CAPACITY = 1 << 12;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final String THREAD_NAME = "javions-metadata-";
+
+    private final AircraftDatabase database;
+    private final ExecutorService executor;
+    private final Map<IcaoAddress, AircraftData> cache;
+    private final Map<IcaoAddress, Boolean> unknown;
+    private final ConcurrentMap<IcaoAddress, CompletableFuture<AircraftData>> pending = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+    /**
+     * Le constructeur public de la classe AircraftMetadataService, avec le nombre de fils d'exécution et la taille
+     * des caches par défaut
+     *
+     * @param database la base de données des aéronefs
+     */
+    public AircraftMetadataService(AircraftDatabase database) {
+        this(database, DEFAULT_THREADS, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Le constructeur public de la classe AircraftMetadataService
+     *
+     * @param database  la base de données des aéronefs
+     * @param threads   le nombre de fils d'exécution effectuant les recherches
+     * @param cacheSize le nombre maximal d'entrées de chacun des deux caches
+     * @throws IllegalArgumentException si le nombre de fils ou la taille des caches n'est pas strictement positif
+     */
+    public AircraftMetadataService(AircraftDatabase database, int threads, int cacheSize) {
+        Preconditions.checkArgument(threads > 0 && cacheSize > 0);
+        this.database = Objects.requireNonNull(database);
+        this.cache = lruMap(cacheSize);
+        this.unknown = lruMap(cacheSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Cette méthode retourne une table associative de taille bornée, évinçant l'entrée la moins récemment utilisée
+    private static <V> Map<IcaoAddress, V> lruMap(int maxSize) {
+        return new LinkedHashMap<>(maxSize, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IcaoAddress, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Cette méthode recherche les données de l'aéronef d'adresse donnée. Si elles se trouvent dans l'un des caches,
+     * le résultat est immédiatement disponible, sinon la recherche est confiée aux fils d'exécution du service.
+     *
+     * @param address l'adresse OACI de l'aéronef
+     * @return le futur résultat de la recherche : les données de l'aéronef, ou null si l'adresse est inconnue de la
+     * base de données ; il se termine exceptionnellement en cas d'erreur d'entrée/sortie, ou si trop de recherches
+     * sont déjà en attente
+     */
+    public CompletableFuture<AircraftData> lookup(IcaoAddress address) {
+        Objects.requireNonNull(address);
+        synchronized (cache) {
+            AircraftData data = cache.get(address);
+            if (data != null) {
+                hits.increment();
+                return CompletableFuture.completedFuture(data);
+            }
+            if (unknown.get(address) != null) {
+                negativeHits.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<AircraftData> future = new CompletableFuture<>();
+        CompletableFuture<AircraftData> existing = pending.putIfAbsent(address, future);
+        if (existing != null) return existing;
+        try {
+            executor.execute(() -> load(address, future));
+        } catch (RejectedExecutionException e) {
+            pending.remove(address, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // Cette méthode, exécutée par un fil du service, effectue la recherche et en garde le résultat dans les caches
+    private void load(IcaoAddress address, CompletableFuture<AircraftData> future) {
+        try {
+            AircraftData data = database.get(address);
+            synchronized (cache) {
+                if (data != null) {
+                    cache.put(address, data);
+                } else {
+                    unknown.put(address, Boolean.TRUE);
+                }
+            }
+            pending.remove(address, future);
+            future.complete(data);
+        } catch (Exception e) {
+            pending.remove(address, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return le nombre de recherches servies par le cache des données
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return le nombre de recherches servies par le cache des adresses inconnues
+     */
+    public long negativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    /**
+     * @return le nombre de recherches n'ayant trouvé leur résultat dans aucun des caches
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Cette méthode arrête les fils d'exécution du service ; les recherches déjà confiées sont encore effectuées,
+     * mais les suivantes se terminent exceptionnellement
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -2,33 +2,92 @@ package ch.epfl.javions.aircraft;
 
 import ch.epfl.javions.Preconditions;
 
+import java.util.HexFormat;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
- * Cet enregistrement public représente une adresse OACI
+ * Cet enregistrement public représente une adresse OACI, stockée sous la forme de ses 24 bits.
+ * Les instances obtenues avec la méthode of sont internées : tant qu'un aéronef est actif, ses messages partagent
+ * la même instance, et les recherches dans les tables se font sur un entier.
  *
+ * @param value les 24 bits de l'adresse OACI
  * @author Marwa Chiguer (325221)
  * @author Imane Oujja (344332)
  */
 
-public record IcaoAddress(String string) {
+public record IcaoAddress(int value) {
     private static final Pattern expReg1 = Pattern.compile("[0-9A-F]{6}");
+    private static final int BITS = 24;
+    private static final int DIGITS = 6;
+    private static final int HEX_RADIX = 16;
+    private static final int CACHE_SIZE = 1 << 12;
+    private static final IcaoAddress[] cache = new IcaoAddress[CACHE_SIZE];
 
     /**
-     * Le constructeur compact de cet enregistrement valide la chaîne qui lui est passée
+     * Le constructeur compact de cet enregistrement valide la valeur qui lui est passée
      *
+     * @throws IllegalArgumentException si elle ne tient pas sur 24 bits.
+     */
+    public IcaoAddress {
+        Preconditions.checkArgument(value >= 0 && value < (1 << BITS));
+    }
+
+    /**
+     * Ce constructeur construit l'adresse OACI à partir de sa représentation textuelle
+     *
+     * @param string les six chiffres hexadécimaux (majuscules) de l'adresse
      * @throws IllegalArgumentException si elle ne représente pas une adresse OACI valide.
      */
+    public IcaoAddress(String string) {
+        this(parse(string));
+    }
 
-    public IcaoAddress {
+    /**
+     * Cette méthode retourne l'adresse OACI de valeur donnée, en réutilisant l'instance déjà créée pour cette valeur
+     * si elle se trouve encore dans le cache
+     *
+     * @param value les 24 bits de l'adresse OACI
+     * @return l'adresse OACI de valeur donnée
+     * @throws IllegalArgumentException si la valeur ne tient pas sur 24 bits.
+     */
+    public static IcaoAddress of(int value) {
+        int index = (value ^ (value >>> 12)) & (CACHE_SIZE - 1);
+        IcaoAddress cached = cache[index];
+        if (cached != null && cached.value == value) {
+            return cached;
+        }
+        IcaoAddress address = new IcaoAddress(value);
+        cache[index] = address;
+        return address;
+    }
+
+    // Cette méthode valide la représentation textuelle donnée et retourne sa valeur
+    private static int parse(String string) {
         Objects.requireNonNull(string);
         Preconditions.checkArgument((expReg1.matcher(string).matches()));
+        return Integer.parseInt(string, HEX_RADIX);
+    }
+
+    /**
+     * @return la représentation textuelle de l'adresse : ses six chiffres hexadécimaux en majuscules
+     */
+    public String string() {
+        return HexFormat.of().withUpperCase().toHexDigits(value, DIGITS);
     }
 
     public String getString() {
-        return string;
+        return string();
     }
 
-}
+    /**
+     * Une redéfinition de la méthode toString, qui conserve la représentation textuelle de l'adresse
+     *
+     * @return une représentation textuelle de l'adresse OACI
+     */
+    @Override
+    public String toString() {
+        return "IcaoAddress[string=" + string() + "]";
+    }
 
+}
@@ -0,0 +1,138 @@
+package ch.epfl.javions.aircraft;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * La classe MappedAircraftIndex représente la base de données mictronics compilée dans un fichier binaire, lu à
+ * travers une projection en mémoire. Le fichier, produit par AircraftDatabaseCompiler, est formé :
+ * <ul>
+ *     <li>d'un en-tête de quatre entiers : nombre magique, version, nombre d'aéronefs et taille de la réserve
+ *     de chaînes,</li>
+ *     <li>de la colonne triée des adresses OACI (un entier par aéronef),</li>
+ *     <li>des positions dans la réserve de l'immatriculation, de l'indicateur de type, du modèle et de la
+ *     description (quatre entiers par aéronef),</li>
+ *     <li>de la catégorie de turbulence de sillage (un octet par aéronef),</li>
+ *     <li>de la réserve de chaînes, dans laquelle chaque chaîne distincte n'apparaît qu'une fois, précédée de sa
+ *     longueur en octets sur 16 bits.</li>
+ * </ul>
+ * Le fichier n'est jamais copié en mémoire : ses pages sont chargées à la demande par le système, et partagées
+ * entre tous les processus qui le projettent.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class MappedAircraftIndex {
+    static final int MAGIC = 0x4A44_4231;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    static final int STRING_COLUMNS = 4;
+    private static final int COUNT_OFFSET = 2 * Integer.BYTES;
+    private static final int POOL_SIZE_OFFSET = 3 * Integer.BYTES;
+    private static final int REGISTRATION = 0;
+    private static final int TYPE_DESIGNATOR = 1;
+    private static final int MODEL = 2;
+    private static final int DESCRIPTION = 3;
+    private static final int LENGTH_MASK = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int refsOffset;
+    private final int categoriesOffset;
+    private final int poolOffset;
+
+    // Le constructeur privé de la classe, qui reçoit la projection du fichier déjà validée
+    private MappedAircraftIndex(ByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+        refsOffset = HEADER_SIZE + count * Integer.BYTES;
+        categoriesOffset = refsOffset + count * STRING_COLUMNS * Integer.BYTES;
+        poolOffset = categoriesOffset + count;
+    }
+
+    /**
+     * Cette méthode projette en mémoire le fichier binaire donné
+     *
+     * @param file le fichier produit par AircraftDatabaseCompiler
+     * @return l'index lisant ce fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie, ou si le fichier n'a pas le format attendu
+     */
+    static MappedAircraftIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("format de base de données inconnu : " + file);
+            }
+            int count = buffer.getInt(COUNT_OFFSET);
+            long expectedSize = HEADER_SIZE + (long) count * ((1 + STRING_COLUMNS) * Integer.BYTES + 1)
+                    + buffer.getInt(POOL_SIZE_OFFSET);
+            if (count < 0 || expectedSize != buffer.limit()) {
+                throw new IOException("base de données tronquée : " + file);
+            }
+            return new MappedAircraftIndex(buffer, count);
+        }
+    }
+
+    /**
+     * Cette méthode retourne les données de l'aéronef d'adresse donnée. Elle n'utilise que des lectures absolues
+     * dans la projection, et peut donc être appelée par plusieurs fils d'exécution à la fois.
+     *
+     * @param icao les 24 bits de l'adresse OACI
+     * @return les données de l'aéronef, ou null si l'adresse ne figure pas dans le fichier
+     */
+    AircraftData get(int icao) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = buffer.getInt(HEADER_SIZE + middle * Integer.BYTES);
+            if (value < icao) {
+                low = middle + 1;
+            } else if (value > icao) {
+                high = middle - 1;
+            } else {
+                return data(middle);
+            }
+        }
+        return null;
+    }
+
+    // Cette méthode construit les données de l'aéronef d'index donné dans les colonnes
+    private AircraftData data(int row) {
+        int refs = refsOffset + row * STRING_COLUMNS * Integer.BYTES;
+        return new AircraftData(
+                new AircraftRegistration(string(buffer.getInt(refs + REGISTRATION * Integer.BYTES))),
+                new AircraftTypeDesignator(string(buffer.getInt(refs + TYPE_DESIGNATOR * Integer.BYTES))),
+                string(buffer.getInt(refs + MODEL * Integer.BYTES)),
+                new AircraftDescription(string(buffer.getInt(refs + DESCRIPTION * Integer.BYTES))),
+                WakeTurbulenceCategory.values()[buffer.get(categoriesOffset + row)]);
+    }
+
+    // Cette méthode lit la chaîne commençant à la position donnée de la réserve
+    private String string(int ref) {
+        int start = poolOffset + ref;
+        int length = buffer.getShort(start) & LENGTH_MASK;
+        byte[] bytes = new byte[length];
+        buffer.get(start + Short.BYTES, bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * @return le nombre d'aéronefs du fichier
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return la taille du fichier projeté, en octets
+     */
+    long sizeInBytes() {
+        return buffer.limit();
+    }
+}
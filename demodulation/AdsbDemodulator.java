@@ -1,25 +1,38 @@
 package ch.epfl.javions.demodulation;
 
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.adsb.FlyweightMessage;
 import ch.epfl.javions.adsb.RawMessage;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * La classe AdsbDemodulator publique et finale représente un démodulateur de messaes ADSB.
+ * <p>
+ * Si elle est demandée, la correction des erreurs d'un seul bit ne s'applique qu'aux messages dont l'adresse OACI,
+ * une fois corrigée, a été reçue dans un message valide sans correction au cours de la minute précédente. Environ
+ * 107 des 2^24 syndromes sont corrigeables, de sorte qu'une part de l'ordre de 6e-6 des candidats bruités de format
+ * DF17 serait sinon « corrigée » en un message valide, créant des aéronefs fantômes à un rythme constant.
  *
  * @author Marwa Chiguer (325221)
  * @author Imane Oujja (344332)
  */
 public final class AdsbDemodulator {
 
-    private static final int WINDOW_SIZE = 1200;
+    static final int WINDOW_SIZE = 1200;
     private static final int BYTE_SIZE = 8;
     private static final int MSG_LENGTH = 14;
     private static final int PREAMBULE_SIZE = 80;
     private static final int STEP = 10;
+    private static final int START_ICAO = 1;
     private final PowerWindow powerWindow;
     private final byte[] msg = new byte[MSG_LENGTH];
+    private final boolean correctErrors;
+    private final IcaoAddressSet cleanAddresses = new IcaoAddressSet();
+    private volatile long correctedMessages;
+    private long frameTimeStampNs;
 
 
     /**
@@ -29,7 +42,64 @@ public final class AdsbDemodulator {
      * @throws IOException si une erreur d'entrée/sortie se produit.
      */
     public AdsbDemodulator(InputStream samplesStream) throws IOException {
+        this(samplesStream, false);
+    }
+
+
+    /**
+     * Ce constructeur retourne un démodulateur qui, si demandé, corrige les messages DF17 comportant une erreur
+     * d'un seul bit au lieu de les ignorer
+     *
+     * @param samplesStream le flot
+     * @param correctErrors vrai si les erreurs d'un seul bit doivent être corrigées
+     * @throws IOException si une erreur d'entrée/sortie se produit.
+     */
+    public AdsbDemodulator(InputStream samplesStream, boolean correctErrors) throws IOException {
         powerWindow = new PowerWindow(samplesStream, WINDOW_SIZE);
+        this.correctErrors = correctErrors;
+    }
+
+
+    /**
+     * Ce constructeur retourne un démodulateur décodant directement les échantillons d'une portion projetée en
+     * mémoire d'un fichier, sans copie intermédiaire
+     *
+     * @param channel le canal du fichier, qui reste la propriété de l'appelant
+     * @param offset  la position du premier octet de la portion
+     * @param length  le nombre d'octets de la portion
+     * @throws IOException si une erreur d'entrée/sortie se produit.
+     */
+    public AdsbDemodulator(FileChannel channel, long offset, long length) throws IOException {
+        this(channel, offset, length, false);
+    }
+
+
+    /**
+     * Ce constructeur retourne un démodulateur décodant directement les échantillons d'une portion projetée en
+     * mémoire d'un fichier, sans copie intermédiaire, et qui, si demandé, corrige les messages DF17 comportant une
+     * erreur d'un seul bit au lieu de les ignorer
+     *
+     * @param channel       le canal du fichier, qui reste la propriété de l'appelant
+     * @param offset        la position du premier octet de la portion
+     * @param length        le nombre d'octets de la portion
+     * @param correctErrors vrai si les erreurs d'un seul bit doivent être corrigées
+     * @throws IOException si une erreur d'entrée/sortie se produit.
+     */
+    public AdsbDemodulator(FileChannel channel, long offset, long length, boolean correctErrors)
+            throws IOException {
+        powerWindow = new PowerWindow(channel, offset, length, WINDOW_SIZE);
+        this.correctErrors = correctErrors;
+    }
+
+
+    /**
+     * Cette méthode retourne le nombre de messages corrigés depuis la création du démodulateur ; elle peut être
+     * appelée depuis un autre fil d'exécution que celui du démodulateur
+     *
+     * @return le nombre de messages dont une erreur d'un seul bit a été corrigée
+     */
+    public long correctedMessageCount() {
+        return correctedMessages;
     }
 
 
@@ -40,17 +110,41 @@ public final class AdsbDemodulator {
      * @throws IOException en cas d'erreur d'entrée/sortie.
      */
     public RawMessage nextMessage() throws IOException {
-        RawMessage mess = null;
-        while (powerWindow.isFull()) {
-            int psumRight = powerWindow.get(2) + powerWindow.get(12) + powerWindow.get(37) + powerWindow.get(47);
-            int psum = powerWindow.get(1) + powerWindow.get(11) + powerWindow.get(36) + powerWindow.get(46);
-            int psumLeft = powerWindow.get(0) + powerWindow.get(10) + powerWindow.get(35) + powerWindow.get(45);
-            int vsum = powerWindow.get(5) + powerWindow.get(15) + powerWindow.get(20) + powerWindow.get(25) + powerWindow.get(30) + powerWindow.get(40);
-
-            if (!(psum >= 2 * vsum && psum > psumRight && psumLeft < psum)) {
-                powerWindow.advance();
-                continue;
-            }
+        return nextFrame() ? new RawMessage(frameTimeStampNs, new ByteString(msg)) : null;
+    }
+
+
+    /**
+     * Méthode plaçant le prochain message ADS-B du flot d'échantillons dans la vue donnée, sans allouer d'objets.
+     *
+     * @param message la vue à remplir
+     * @return vrai si un message a été placé dans la vue, faux s'il n'y en a plus
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    public boolean nextMessage(FlyweightMessage message) throws IOException {
+        if (!nextFrame()) {
+            return false;
+        }
+        message.set(frameTimeStampNs, msg);
+        return true;
+    }
+
+
+    /**
+     * Cette méthode avance le démodulateur du nombre d'échantillons de puissance donné sans y chercher de message ;
+     * ces échantillons ne servent qu'à initialiser le calcul des puissances suivantes
+     *
+     * @param count le nombre d'échantillons
+     * @throws IOException en cas d'erreur d'entrée/sortie.
+     */
+    void skip(int count) throws IOException {
+        powerWindow.advanceBy(count);
+    }
+
+
+    // Cette méthode cherche la prochaine trame valide, place ses octets dans msg et son horodatage dans frameTimeStampNs
+    private boolean nextFrame() throws IOException {
+        while (powerWindow.advanceToPreambleCandidate()) {
             powerWindow.advance();
             for (int i = 0; i < MSG_LENGTH; i++) {
                 byte b = 0;
@@ -61,11 +155,31 @@ public final class AdsbDemodulator {
                 msg[i] = b;
             }
             long time = (powerWindow.position() * 100);
-            if (RawMessage.of(time, msg) != null) {
+            int syndrome = RawMessage.syndrome(msg);
+            if (syndrome == 0) {
+                if (correctErrors && RawMessage.size(msg[0]) == MSG_LENGTH) {
+                    cleanAddresses.add(icaoAddress(), time);
+                }
+            } else if (correctErrors && RawMessage.correctSingleBitError(msg, syndrome)) {
+                if (cleanAddresses.contains(icaoAddress(), time)) {
+                    syndrome = 0;
+                    correctedMessages++;
+                }
+            }
+            if (syndrome == 0) {
                 powerWindow.advanceBy(WINDOW_SIZE);
-                return RawMessage.of(time, msg);
+                frameTimeStampNs = time;
+                return true;
             }
         }
-        return null;
+        return false;
+    }
+
+
+    // Cette méthode retourne la valeur de l'adresse OACI du message contenu dans msg
+    private int icaoAddress() {
+        return Byte.toUnsignedInt(msg[START_ICAO]) << 2 * BYTE_SIZE
+                | Byte.toUnsignedInt(msg[START_ICAO + 1]) << BYTE_SIZE
+                | Byte.toUnsignedInt(msg[START_ICAO + 2]);
     }
 }
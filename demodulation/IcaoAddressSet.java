@@ -0,0 +1,83 @@
+package ch.epfl.javions.demodulation;
+
+/**
+ * La classe IcaoAddressSet représente un ensemble d'adresses OACI récemment reçues, données sous la forme de leur
+ * valeur entière de 24 bits, rangées dans une table ouverte de type int[] afin qu'un test d'appartenance n'alloue
+ * aucun objet. L'horodatage de la dernière réception de chaque adresse est conservé : une adresse qui n'a pas été
+ * reçue depuis plus d'une minute, délai au-delà duquel un aéronef est oublié, n'appartient plus à l'ensemble, et
+ * elle en est retirée lors du prochain agrandissement de la table, dont la taille reste ainsi proportionnelle au
+ * nombre d'adresses reçues durant la dernière minute.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class IcaoAddressSet {
+    private static final long MAX_AGE_NS = 60_000_000_000L;
+    private static final int INITIAL_CAPACITY = 1 << 8;
+    private static final int GOLDEN_RATIO = 0x9E3779B1;
+    // les adresses sont rangées avec ce bit, afin qu'aucune ne vaille 0, valeur des cases vides
+    private static final int PRESENT = 1 << 24;
+
+    private int[] table = new int[INITIAL_CAPACITY];
+    private long[] lastSeen = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Cette méthode ajoute l'adresse donnée à l'ensemble, ou met à jour l'horodatage de sa dernière réception si
+     * elle y est déjà
+     *
+     * @param address     la valeur de l'adresse, sur 24 bits
+     * @param timeStampNs l'horodatage de la réception, en nanosecondes
+     */
+    void add(int address, long timeStampNs) {
+        int slot = slot(address, table);
+        lastSeen[slot] = timeStampNs;
+        if (table[slot] != 0) return;
+        table[slot] = address | PRESENT;
+        size += 1;
+        // la table n'est jamais remplie à plus de la moitié
+        if (2 * size > table.length) rehash(timeStampNs);
+    }
+
+    /**
+     * @param address     la valeur de l'adresse, sur 24 bits
+     * @param timeStampNs l'horodatage actuel, en nanosecondes
+     * @return vrai ssi l'adresse a été reçue durant la minute précédant l'horodatage donné
+     */
+    boolean contains(int address, long timeStampNs) {
+        int slot = slot(address, table);
+        return table[slot] != 0 && timeStampNs - lastSeen[slot] <= MAX_AGE_NS;
+    }
+
+    // Cette méthode reconstruit la table sans les adresses expirées à l'horodatage donné, avec une taille
+    // permettant d'ajouter encore au moins autant d'adresses qu'il en reste avant la reconstruction suivante
+    private void rehash(long timeStampNs) {
+        int live = 0;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != 0 && timeStampNs - lastSeen[i] <= MAX_AGE_NS) live += 1;
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (4 * live > capacity) capacity *= 2;
+
+        int[] newTable = new int[capacity];
+        long[] newLastSeen = new long[capacity];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != 0 && timeStampNs - lastSeen[i] <= MAX_AGE_NS) {
+                int slot = slot(table[i] & ~PRESENT, newTable);
+                newTable[slot] = table[i];
+                newLastSeen[slot] = lastSeen[i];
+            }
+        }
+        table = newTable;
+        lastSeen = newLastSeen;
+        size = live;
+    }
+
+    // Cette méthode retourne la case de la table contenant l'adresse donnée, ou la case vide où la ranger
+    private static int slot(int address, int[] table) {
+        int mask = table.length - 1;
+        int slot = (address * GOLDEN_RATIO) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(table.length));
+        while (table[slot] != 0 && table[slot] != (address | PRESENT)) slot = (slot + 1) & mask;
+        return slot;
+    }
+}
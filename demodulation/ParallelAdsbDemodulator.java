@@ -0,0 +1,224 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * La classe ParallelAdsbDemodulator publique et finale représente un démodulateur de messages ADS-B parallèle,
+ * destiné au traitement hors ligne de fichiers d'échantillons AirSpy.
+ * Le flot de puissance est découpé en tranches qui se chevauchent d'au moins la taille d'un message (WINDOW_SIZE);
+ * chaque tranche est démodulée sur un ForkJoinPool, puis les messages sont fusionnés par ordre d'horodatage.
+ * Chaque tranche ne garde que les messages qui commencent dans la partie qui lui appartient, ce qui élimine
+ * les doublons trouvés dans les chevauchements.
+ * Comme le démodulateur séquentiel saute WINDOW_SIZE échantillons après chaque message, son résultat dans une
+ * tranche dépend du dernier message de la précédente : chaque tranche commence donc sa démodulation un
+ * chevauchement plus tôt, afin d'y trouver ce message et d'en respecter le saut. Lors de la fusion, la position
+ * à laquelle la tranche a ainsi commencé sa recherche est comparée à celle que fixe le dernier message de la
+ * tranche précédente ; dans les rares cas où elles diffèrent, la tranche est démodulée à nouveau depuis la bonne
+ * position, jusqu'à ce qu'elle retrouve l'un des messages de la première démodulation. Sans correction des
+ * erreurs, le résultat est ainsi identique à celui du démodulateur séquentiel.
+ * Si elle est demandée, la correction des erreurs d'un seul bit est effectuée par tranche : un message corrigé n'est
+ * accepté que si son adresse a déjà été reçue sans erreur dans la même tranche (voir AdsbDemodulator).
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class ParallelAdsbDemodulator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+    private static final int BYTES_PER_POWER = 4;
+    private static final int WARM_UP = 8;
+    private static final int OVERLAP = AdsbDemodulator.WINDOW_SIZE + WARM_UP;
+    private static final long NS_PER_POWER = 100;
+    private final Path samplesFile;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    private final boolean correctErrors;
+    private final LongAdder correctedMessages = new LongAdder();
+
+    // les messages d'une tranche, l'ensemble des index de ceux qui ont été corrigés, et la position à partir de
+    // laquelle les candidats de préambule de la tranche ont été cherchés, après le saut éventuel d'un message
+    // la précédant
+    private record Chunk(List<RawMessage> messages, BitSet corrected, long scanStart) {
+    }
+
+
+    /**
+     * Le constructeur retourne un démodulateur parallèle utilisant le pool commun et la taille de tranche par défaut
+     *
+     * @param samplesFile le fichier contenant les échantillons de la radio AirSpy
+     * @throws NullPointerException si le fichier est nul
+     */
+    public ParallelAdsbDemodulator(Path samplesFile) {
+        this(samplesFile, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Le constructeur retourne un démodulateur parallèle
+     *
+     * @param samplesFile le fichier contenant les échantillons de la radio AirSpy
+     * @param chunkSize   le nombre d'échantillons de puissance appartenant à chaque tranche
+     * @param pool        le pool sur lequel les tranches sont démodulées
+     * @throws IllegalArgumentException si la taille des tranches n'est pas strictement supérieure au chevauchement
+     * @throws NullPointerException     si le fichier ou le pool est nul
+     */
+    public ParallelAdsbDemodulator(Path samplesFile, int chunkSize, ForkJoinPool pool) {
+        this(samplesFile, chunkSize, pool, false);
+    }
+
+
+    /**
+     * Le constructeur retourne un démodulateur parallèle qui, si demandé, corrige les messages DF17 comportant une
+     * erreur d'un seul bit au lieu de les ignorer
+     *
+     * @param samplesFile   le fichier contenant les échantillons de la radio AirSpy
+     * @param chunkSize     le nombre d'échantillons de puissance appartenant à chaque tranche
+     * @param pool          le pool sur lequel les tranches sont démodulées
+     * @param correctErrors vrai si les erreurs d'un seul bit doivent être corrigées
+     * @throws IllegalArgumentException si la taille des tranches n'est pas strictement supérieure au chevauchement
+     * @throws NullPointerException     si le fichier ou le pool est nul
+     */
+    public ParallelAdsbDemodulator(Path samplesFile, int chunkSize, ForkJoinPool pool, boolean correctErrors) {
+        Preconditions.checkArgument(chunkSize > OVERLAP);
+        this.samplesFile = Objects.requireNonNull(samplesFile);
+        this.pool = Objects.requireNonNull(pool);
+        this.chunkSize = chunkSize;
+        this.correctErrors = correctErrors;
+    }
+
+
+    /**
+     * Cette méthode retourne le nombre de messages corrigés par les démodulations effectuées jusqu'ici
+     *
+     * @return le nombre de messages dont une erreur d'un seul bit a été corrigée
+     */
+    public long correctedMessageCount() {
+        return correctedMessages.sum();
+    }
+
+
+    /**
+     * Cette méthode démodule la totalité du fichier et retourne ses messages ADS-B
+     *
+     * @return la liste non modifiable des messages du fichier, triés par horodatage
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public List<RawMessage> demodulate() throws IOException {
+        try (FileChannel channel = FileChannel.open(samplesFile, StandardOpenOption.READ)) {
+            long nbPowers = channel.size() / BYTES_PER_POWER;
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            for (long start = 0; start < nbPowers; start += chunkSize) {
+                long ownStart = start;
+                long ownEnd = Math.min(start + chunkSize, nbPowers);
+                tasks.add(() -> demodulateChunk(channel, Math.max(0, ownStart - 1 - OVERLAP), ownStart, ownEnd,
+                        null));
+            }
+
+            // les tranches sont dans l'ordre du flot, la concaténation est donc triée par horodatage ; chacune
+            // est vérifiée, et au besoin resynchronisée, avec le saut du dernier message de la précédente
+            List<RawMessage> messages = new ArrayList<>();
+            long resume = 0;
+            long ownStart = 0;
+            for (Future<Chunk> future : pool.invokeAll(tasks)) {
+                long ownEnd = Math.min(ownStart + chunkSize, nbPowers);
+                Chunk chunk = future.get();
+                long scanStart = Math.max(firstCandidate(ownStart), resume);
+                if (chunk.scanStart() != scanStart) {
+                    chunk = demodulateChunk(channel, scanStart, ownStart, ownEnd, chunk);
+                }
+                messages.addAll(chunk.messages());
+                correctedMessages.add(chunk.corrected().cardinality());
+                if (!chunk.messages().isEmpty()) {
+                    resume = chunk.messages().get(chunk.messages().size() - 1).timeStampNs() / NS_PER_POWER
+                            + AdsbDemodulator.WINDOW_SIZE;
+                }
+                ownStart = ownEnd;
+            }
+            return unmodifiableList(messages);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+
+    // Cette méthode démodule une tranche et retourne les messages commençant dans [ownStart, ownEnd), en cherchant
+    // les candidats de préambule à partir de la position scanFrom. Les messages antérieurs à ownStart ne sont pas
+    // gardés, mais le saut qui suit chacun d'eux est respecté, comme par le démodulateur séquentiel. Si une
+    // démodulation antérieure de la tranche est donnée, celle-ci s'arrête au premier message trouvé par les deux :
+    // elles ne diffèrent plus au-delà, et la suite est celle de la démodulation antérieure.
+    private Chunk demodulateChunk(FileChannel channel, long scanFrom, long ownStart, long ownEnd, Chunk previous)
+            throws IOException {
+        long first = Math.max(0, scanFrom - WARM_UP);
+        long last = Math.min(channel.size() / BYTES_PER_POWER, ownEnd + OVERLAP);
+        AdsbDemodulator demodulator = new AdsbDemodulator(channel, first * BYTES_PER_POWER,
+                (last - first) * BYTES_PER_POWER, correctErrors);
+        demodulator.skip((int) (scanFrom - first));
+
+        List<RawMessage> messages = new ArrayList<>();
+        BitSet corrected = new BitSet();
+        long scanStart = Math.max(firstCandidate(ownStart), scanFrom);
+        long correctedCount = 0;
+        int common = 0;
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null) {
+            long position = first + message.timeStampNs() / NS_PER_POWER;
+            if (position >= ownEnd) break;
+            // seuls les messages corrigés conservés par la tranche sont comptés, pas ceux des chevauchements
+            boolean wasCorrected = demodulator.correctedMessageCount() != correctedCount;
+            correctedCount = demodulator.correctedMessageCount();
+            if (position < ownStart) {
+                scanStart = Math.max(firstCandidate(ownStart), position + AdsbDemodulator.WINDOW_SIZE);
+                continue;
+            }
+            if (previous != null) {
+                List<RawMessage> previousMessages = previous.messages();
+                while (common < previousMessages.size()
+                        && previousMessages.get(common).timeStampNs() < position * NS_PER_POWER) {
+                    common += 1;
+                }
+                if (common < previousMessages.size()
+                        && previousMessages.get(common).timeStampNs() == position * NS_PER_POWER) {
+                    int kept = messages.size();
+                    messages.addAll(previousMessages.subList(common, previousMessages.size()));
+                    for (int i = previous.corrected().nextSetBit(common); i >= 0;
+                         i = previous.corrected().nextSetBit(i + 1)) {
+                        corrected.set(kept + i - common);
+                    }
+                    break;
+                }
+            }
+            if (wasCorrected) corrected.set(messages.size());
+            messages.add(new RawMessage(position * NS_PER_POWER, message.bytes()));
+        }
+        return new Chunk(messages, corrected, scanStart);
+    }
+
+
+    // Cette méthode retourne la position du premier candidat de préambule pouvant produire un message commençant
+    // à la position donnée ou après celle-ci, l'horodatage d'un message étant celui du candidat plus un échantillon
+    private static long firstCandidate(long position) {
+        return Math.max(0, position - 1);
+    }
+}
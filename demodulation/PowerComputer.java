@@ -4,6 +4,7 @@ import ch.epfl.javions.Preconditions;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * La classe PowerComputer publique et finale, représente un calculateur de puissance
@@ -11,25 +12,71 @@ import java.io.InputStream;
  *  @author Imane Oujja (344332)
  */
 public final class PowerComputer {
+    private static final boolean VECTOR_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
     private final int batchSize;
     private final SamplesDecoder Sd;
     private final short[] tableau;
     private final short [] tab;
+    private final VectorizedPowerComputer vectorized;
 
 
 
     /**
-     * Le constructeur de PowerComputer publique et finale représente un calculateur de puissance
+     * Le constructeur de PowerComputer publique et finale représente un calculateur de puissance,
+     * vectoriel si le module jdk.incubator.vector est disponible
      * @param stream flot d'entrée
      * @param batchSize la taille des lots
      * @throws IllegalArgumentException si la taille des lots est invalide
      */
     public PowerComputer(InputStream stream, int batchSize) {
+        this(stream, batchSize, true);
+    }
+
+
+    /**
+     * Le constructeur de PowerComputer permettant de choisir le calcul vectoriel ou scalaire
+     * @param stream flot d'entrée
+     * @param batchSize la taille des lots
+     * @param vectorize vrai si le calcul vectoriel doit être utilisé lorsque le module jdk.incubator.vector est
+     *                  disponible, faux pour toujours utiliser le calcul scalaire
+     * @throws IllegalArgumentException si la taille des lots est invalide
+     */
+    public PowerComputer(InputStream stream, int batchSize, boolean vectorize) {
+        this(new SamplesDecoder(stream, 2*batchSize), batchSize, vectorize);
+    }
+
+
+    /**
+     * Le constructeur de PowerComputer calculant les puissances à partir d'une portion projetée en mémoire d'un fichier
+     * @param channel le canal du fichier, qui reste la propriété de l'appelant
+     * @param offset la position du premier octet de la portion
+     * @param length le nombre d'octets de la portion
+     * @param batchSize la taille des lots
+     * @throws IllegalArgumentException si la taille des lots ou la portion est invalide
+     */
+    public PowerComputer(FileChannel channel, long offset, long length, int batchSize) {
+        this(new SamplesDecoder(channel, offset, length, 2*batchSize), batchSize, true);
+    }
+
+
+    // Constructeur privé commun, prenant le décodeur d'échantillons à utiliser
+    private PowerComputer(SamplesDecoder decoder, int batchSize, boolean vectorize) {
         Preconditions.checkArgument(batchSize > 0 && batchSize % 8 == 0);
         this.batchSize = batchSize;
         this.tableau= new short[2*batchSize];
         tab = new short[8];
-        Sd = new SamplesDecoder(stream, 2*batchSize);
+        Sd = decoder;
+        vectorized = (vectorize && VECTOR_AVAILABLE) ? new VectorizedPowerComputer(batchSize) : null;
+    }
+
+
+    /**
+     * Cette méthode publique indique si ce calculateur utilise le calcul vectoriel
+     * @return vrai ssi les puissances sont calculées avec l'API Vector du JDK
+     */
+    public boolean isVectorized() {
+        return vectorized != null;
     }
 
 
@@ -48,6 +95,9 @@ public final class PowerComputer {
         Preconditions.checkArgument(batch.length == batchSize); {
         }
         int compteur = Sd.readBatch(tableau);
+        if (vectorized != null) {
+            return vectorized.computePowers(tableau, compteur, batch);
+        }
         int pos = 0;
         int j=0;
         for (int i = 0; i < tableau.length-1; i= i+2) {
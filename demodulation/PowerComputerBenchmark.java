@@ -0,0 +1,102 @@
+package ch.epfl.javions.demodulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * La classe PowerComputerBenchmark publique et non instanciable compare le calcul scalaire et le calcul vectoriel
+ * des puissances de PowerComputer sur les mêmes échantillons : elle vérifie d'abord que les deux calculs produisent
+ * exactement les mêmes lots, puis mesure le débit de chacun. Elle s'exécute avec l'option
+ * --add-modules jdk.incubator.vector, sans laquelle seul le calcul scalaire est disponible.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class PowerComputerBenchmark {
+    private static final int BATCH_SIZE = 1 << 16;
+    private static final int RANDOM_BYTES = 1 << 26;
+    private static final long SEED = 2023;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int BYTES_PER_SAMPLE = 4;
+    private static final double NANOSECONDS_PER_SECOND = 1e9;
+    private static final double MEGA = 1e6;
+
+    /**
+     * La méthode main compare les deux calculs et affiche leurs débits, en millions d'échantillons de puissance
+     * par seconde
+     *
+     * @param args éventuellement le nom d'un fichier d'échantillons produits par la radio ; à défaut, les
+     *             échantillons sont aléatoires
+     * @throws IOException           en cas d'erreur d'entrée/sortie
+     * @throws IllegalStateException si les deux calculs ne produisent pas les mêmes puissances
+     */
+    public static void main(String[] args) throws IOException {
+        byte[] bytes;
+        if (args.length > 0) {
+            bytes = Files.readAllBytes(Path.of(args[0]));
+        } else {
+            bytes = new byte[RANDOM_BYTES];
+            new Random(SEED).nextBytes(bytes);
+        }
+
+        long powers = checkEqual(bytes);
+        System.out.printf("%d échantillons de puissance identiques%n", powers);
+        if (!new PowerComputer(new ByteArrayInputStream(bytes), BATCH_SIZE).isVectorized()) {
+            System.out.println("Calcul vectoriel indisponible : module jdk.incubator.vector absent");
+            return;
+        }
+
+        double scalar = throughput(bytes, false);
+        double vector = throughput(bytes, true);
+        System.out.printf("Scalaire : %.1f Méch/s%n", scalar);
+        System.out.printf("Vectoriel : %.1f Méch/s (x%.2f)%n", vector, vector / scalar);
+    }
+
+    // Cette méthode lit les échantillons donnés avec les deux calculs en parallèle, lot par lot, et lève
+    // IllegalStateException au premier lot qui diffère ; elle retourne le nombre de puissances comparées
+    private static long checkEqual(byte[] bytes) throws IOException {
+        PowerComputer scalar = new PowerComputer(new ByteArrayInputStream(bytes), BATCH_SIZE, false);
+        PowerComputer vector = new PowerComputer(new ByteArrayInputStream(bytes), BATCH_SIZE, true);
+        int[] scalarBatch = new int[BATCH_SIZE];
+        int[] vectorBatch = new int[BATCH_SIZE];
+        long powers = 0;
+        int count;
+        do {
+            count = scalar.readBatch(scalarBatch);
+            if (vector.readBatch(vectorBatch) != count
+                    || !Arrays.equals(scalarBatch, 0, count, vectorBatch, 0, count)) {
+                throw new IllegalStateException("Les calculs scalaire et vectoriel diffèrent après "
+                        + powers + " échantillons de puissance");
+            }
+            powers += count;
+        } while (count > 0);
+        return powers;
+    }
+
+    // Cette méthode retourne le meilleur débit mesuré du calcul donné, en millions d'échantillons par seconde,
+    // après quelques tours de chauffe permettant au compilateur JIT d'optimiser la boucle
+    private static double throughput(byte[] bytes, boolean vectorize) throws IOException {
+        int[] batch = new int[BATCH_SIZE];
+        long bestNs = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            PowerComputer computer = new PowerComputer(new ByteArrayInputStream(bytes), BATCH_SIZE, vectorize);
+            long start = System.nanoTime();
+            while (computer.readBatch(batch) > 0) {
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) bestNs = Math.min(bestNs, elapsed);
+        }
+        return (double) bytes.length / BYTES_PER_SAMPLE / (bestNs / NANOSECONDS_PER_SECOND) / MEGA;
+    }
+
+    /**
+     * Constructeur privé de la classe non instantiable.
+     */
+    private PowerComputerBenchmark() {
+    }
+}
@@ -4,6 +4,7 @@ import ch.epfl.javions.Preconditions;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * La classe PowerWindow publique et finale représente une fenêtre de taille fixe sur une séquence d'échantillons
@@ -14,12 +15,13 @@ import java.io.InputStream;
  */
 public final class PowerWindow {
     private static final int BATCH_SIZE = 1 << 16;
+    private static final int PREAMBLE_SPAN = 48;
     private final int windowSize;
     private final PowerComputer powerComputer;
     private int[] tab1;
     private int[] tab2;
     private int positionActuelle;
-    private int positionAbsolue;
+    private long positionAbsolue;
     private int nbSamples;
 
 
@@ -32,11 +34,33 @@ public final class PowerWindow {
      * @throws IOException si la taille de la fenêtre donnée est invalide
      */
     public PowerWindow(InputStream stream, int windowSize) throws IOException {
+        this(new PowerComputer(stream, BATCH_SIZE), windowSize);
+    }
+
+
+    /**
+     * Ce constructeur retourne une fenêtre de taille donnée sur les échantillons de puissance calculés à partir
+     * d'une portion projetée en mémoire d'un fichier
+     *
+     * @param channel    le canal du fichier, qui reste la propriété de l'appelant
+     * @param offset     la position du premier octet de la portion
+     * @param length     le nombre d'octets de la portion
+     * @param windowSize la taille de la fenêtre
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si la taille de la fenêtre ou la portion est invalide
+     */
+    public PowerWindow(FileChannel channel, long offset, long length, int windowSize) throws IOException {
+        this(new PowerComputer(channel, offset, length, BATCH_SIZE), windowSize);
+    }
+
+
+    // Constructeur privé commun, prenant le calculateur de puissance à utiliser
+    private PowerWindow(PowerComputer powerComputer, int windowSize) throws IOException {
 
         Preconditions.checkArgument(!(windowSize <= 0 || windowSize > BATCH_SIZE));
 
         this.windowSize = windowSize;
-        this.powerComputer = new PowerComputer(stream, BATCH_SIZE);
+        this.powerComputer = powerComputer;
         this.positionActuelle = 0;
         this.tab1 = new int[BATCH_SIZE];
         this.tab2 = new int[BATCH_SIZE];
@@ -110,15 +134,76 @@ public final class PowerWindow {
 
 
     /**
-     * Cette méthode avance la fenêtre du nombre d'échantillons donné
+     * Cette méthode avance la fenêtre du nombre d'échantillons donné, en temps constant : seuls les points où un
+     * nouveau lot doit être lu ou où les deux tableaux doivent être échangés sont traités par advance
      *
      * @param offset nombre d'échantillons
      * @throws IllegalArgumentException si ce nombre n'est pas positif ou nul
      */
     public void advanceBy(int offset) throws IOException {
         Preconditions.checkArgument(offset >= 0);
-        for (int i = 0; i < offset; i++) {
+        int readPoint = BATCH_SIZE - windowSize + 1;
+        while (offset > 0) {
+            int nextEvent = (positionActuelle < readPoint) ? readPoint : BATCH_SIZE;
+            int step = Math.max(1, Math.min(offset, nextEvent - positionActuelle));
+            nbSamples -= step - 1;
+            positionAbsolue += step - 1;
+            positionActuelle += step - 1;
             advance();
+            offset -= step;
         }
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Cette méthode avance la fenêtre jusqu'au prochain candidat de préambule, c.-à-d. la prochaine position dont les
+     * échantillons de puissance ont la forme d'un préambule ADS-B. La recherche travaille directement sur les tableaux
+     * de la fenêtre, sans passer par get.
+     *
+     * @return vrai si la fenêtre, pleine, est positionnée sur un candidat, faux si elle n'est plus pleine
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public boolean advanceToPreambleCandidate() throws IOException {
+        while (isFull()) {
+            int start = positionActuelle;
+            int fullEnd = start + nbSamples - windowSize;
+            int end = Math.min(fullEnd, BATCH_SIZE - PREAMBLE_SPAN);
+            int p = start;
+            while (p <= end && !isPreambleCandidate(tab1, p)) {
+                p++;
+            }
+            advanceBy(p - start);
+            if (p <= end) {
+                return true;
+            }
+            // le préambule chevauche les deux tableaux : on revient à get pour ces quelques positions
+            if (p <= fullEnd) {
+                if (isPreambleCandidate()) {
+                    return true;
+                }
+                advance();
+            }
+        }
+        return false;
+    }
+
+
+    // Cette méthode détermine si les échantillons du tableau à partir de p ont la forme d'un préambule
+    private static boolean isPreambleCandidate(int[] t, int p) {
+        int psumRight = t[p + 2] + t[p + 12] + t[p + 37] + t[p + 47];
+        int psum = t[p + 1] + t[p + 11] + t[p + 36] + t[p + 46];
+        int psumLeft = t[p] + t[p + 10] + t[p + 35] + t[p + 45];
+        int vsum = t[p + 5] + t[p + 15] + t[p + 20] + t[p + 25] + t[p + 30] + t[p + 40];
+        return psum >= 2 * vsum && psum > psumRight && psumLeft < psum;
+    }
+
+
+    // Cette méthode détermine si les échantillons de la fenêtre ont la forme d'un préambule, en utilisant get
+    private boolean isPreambleCandidate() {
+        int psumRight = get(2) + get(12) + get(37) + get(47);
+        int psum = get(1) + get(11) + get(36) + get(46);
+        int psumLeft = get(0) + get(10) + get(35) + get(45);
+        int vsum = get(5) + get(15) + get(20) + get(25) + get(30) + get(40);
+        return psum >= 2 * vsum && psum > psumRight && psumLeft < psum;
+    }
+}
@@ -4,6 +4,9 @@ import ch.epfl.javions.Preconditions;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 
 /**
@@ -20,9 +23,16 @@ public final class SamplesDecoder {
     private final static int BIAS = 2048;
 
     private final static int MASK = 0xFF;
+    private final static int SAMPLE_BYTES = 2;
+    private final static long SEGMENT_SIZE = 1L << 26;
     private final byte[] tableauOctets;
     private final int batchSize;
     private final InputStream stream;
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private MappedByteBuffer segment;
+    private long segmentStart;
 
 
 
@@ -40,6 +50,32 @@ public final class SamplesDecoder {
         this.stream = stream;
         this.batchSize = batchSize;
         tableauOctets = new byte[batchSize * 2];
+        channel = null;
+        end = 0;
+    }
+
+
+    /**
+     * Ce constructeur retourne un décodeur d'échantillons lisant directement les octets de la radio AirSpy dans une
+     * portion projetée en mémoire du fichier donné, sans copie intermédiaire. Le fichier est projeté par segments,
+     * à la demande, ce qui permet de traiter des fichiers plus grands que la mémoire.
+     *
+     * @param channel   le canal du fichier, qui reste la propriété de l'appelant
+     * @param offset    la position du premier octet à décoder dans le fichier
+     * @param length    le nombre d'octets à décoder
+     * @param batchSize taille des lots
+     * @throws IllegalArgumentException si la taille des lots n'est pas strictement positive, ou si la portion décrite
+     *                                  par offset et length est invalide
+     * @throws NullPointerException     si le canal est nul
+     */
+    public SamplesDecoder(FileChannel channel, long offset, long length, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0 && offset >= 0 && length >= 0);
+        this.channel = Objects.requireNonNull(channel);
+        this.batchSize = batchSize;
+        this.position = offset;
+        this.end = offset + length;
+        stream = null;
+        tableauOctets = null;
     }
 
 
@@ -55,6 +91,9 @@ public final class SamplesDecoder {
 
     public int readBatch(short[] batch) throws IOException {
         Preconditions.checkArgument(batch.length == batchSize);
+        if (channel != null) {
+            return readMappedBatch(batch);
+        }
         int bytesRead = stream.readNBytes(tableauOctets, 0, tableauOctets.length);
         for (int i = 0; i < bytesRead / 2; i++) {
             short a = (short) (((tableauOctets[2 * i + 1] & MASK) << BYTE_SIZE) | (tableauOctets[2 * i] & MASK));
@@ -64,7 +103,27 @@ public final class SamplesDecoder {
         return bytesRead / 2;
     }
 
-}
-
 
+    // Cette méthode décode un lot directement depuis les segments projetés en mémoire du fichier
+    private int readMappedBatch(short[] batch) throws IOException {
+        int count = (int) Math.min(batchSize, (end - position) / SAMPLE_BYTES);
+        int i = 0;
+        while (i < count) {
+            if (segment == null || position + SAMPLE_BYTES > segmentStart + segment.limit()) {
+                segmentStart = position;
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, end - position));
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            int index = (int) (position - segmentStart);
+            int last = Math.min(count, i + (segment.limit() - index) / SAMPLE_BYTES);
+            for (; i < last; i++, index += SAMPLE_BYTES) {
+                short a = segment.getShort(index);
+                short echantillon12Bits = (short) ((a << FOUR_BITS) >> FOUR_BITS);
+                batch[i] = (short) (echantillon12Bits - BIAS);
+            }
+            position = segmentStart + index;
+        }
+        return count;
+    }
 
+}
@@ -0,0 +1,82 @@
+package ch.epfl.javions.demodulation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.L2I;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.S2I;
+
+/**
+ * La classe VectorizedPowerComputer, finale et visible dans le paquetage uniquement, calcule les échantillons de
+ * puissance d'un lot entier à l'aide de l'API Vector du JDK (module jdk.incubator.vector).
+ * Elle produit exactement les mêmes valeurs que le calcul scalaire de PowerComputer.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class VectorizedPowerComputer {
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorShape HALF_SHAPE = VectorShape.forBitSize(INT_SPECIES.vectorBitSize() / 2);
+    private static final VectorSpecies<Short> SHORT_SPECIES = VectorSpecies.of(short.class, HALF_SHAPE);
+    private static final VectorSpecies<Integer> HALF_INT_SPECIES = VectorSpecies.of(int.class, HALF_SHAPE);
+    private static final long LOW_MASK = 0xFFFF_FFFFL;
+    private static final int HALF_INT = 32;
+    private static final int HISTORY = 8;
+    private final short[] samples;
+
+
+    /**
+     * Le constructeur retourne un calculateur vectoriel pour des lots de taille donnée
+     *
+     * @param batchSize la taille des lots (nombre d'échantillons de puissance)
+     */
+    VectorizedPowerComputer(int batchSize) {
+        samples = new short[HISTORY + 2 * batchSize];
+    }
+
+
+    /**
+     * Cette méthode calcule les puissances des échantillons donnés et les place dans le tableau passé en argument.
+     * Les huit derniers échantillons sont conservés d'un lot à l'autre, comme dans le calcul scalaire.
+     *
+     * @param tableau  les échantillons signés produits par le décodeur
+     * @param compteur le nombre d'échantillons lus par le décodeur
+     * @param batch    le lot de puissances à remplir
+     * @return le nombre d'échantillons de puissance placés dans le tableau
+     */
+    int computePowers(short[] tableau, int compteur, int[] batch) {
+        int count = Math.min(compteur, batch.length);
+        int nbSamples = 2 * count;
+        System.arraycopy(tableau, 0, samples, HISTORY, nbSamples);
+
+        int step = INT_SPECIES.length();
+        int k = 0;
+        for (; k <= nbSamples - step; k += step) {
+            // d[k] = x[k] - x[k-2] + x[k-4] - x[k-6], calculé sur des int comme dans le calcul scalaire
+            IntVector d = sampleAt(k)
+                    .sub(sampleAt(k - 2))
+                    .add(sampleAt(k - 4))
+                    .sub(sampleAt(k - 6));
+            // somme des carrés des voies paires et impaires adjacentes
+            LongVector pairs = d.mul(d).reinterpretAsLongs();
+            LongVector sums = pairs.and(LOW_MASK).add(pairs.lanewise(LSHR, HALF_INT));
+            ((IntVector) sums.convertShape(L2I, HALF_INT_SPECIES, 0)).intoArray(batch, k / 2);
+        }
+        for (; k < nbSamples; k += 2) {
+            int i1 = samples[HISTORY + k] - samples[HISTORY + k - 2] + samples[HISTORY + k - 4] - samples[HISTORY + k - 6];
+            int i2 = samples[HISTORY + k + 1] - samples[HISTORY + k - 1] + samples[HISTORY + k - 3] - samples[HISTORY + k - 5];
+            batch[k / 2] = (i1 * i1) + (i2 * i2);
+        }
+        System.arraycopy(samples, nbSamples, samples, 0, HISTORY);
+        return count;
+    }
+
+    // Cette méthode charge les échantillons à partir de l'index k (relatif au lot) et les convertit en int
+    private IntVector sampleAt(int k) {
+        return (IntVector) ShortVector.fromArray(SHORT_SPECIES, samples, HISTORY + k).convertShape(S2I, INT_SPECIES, 0);
+    }
+}
@@ -0,0 +1,27 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.aircraft.AircraftData;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+/**
+ * L'enregistrement AircraftSnapshot public représente un instantané immuable de l'état d'un aéronef,
+ * qui peut être transmis sans risque d'un fil d'exécution à un autre.
+ *
+ * @param icaoAddress            l'adresse OACI de l'aéronef
+ * @param data                   les caractéristiques fixes de l'aéronef, ou null si elles sont inconnues
+ * @param lastMessageTimeStampNs l'horodatage du dernier message reçu de l'aéronef, en nanosecondes
+ * @param category               la catégorie de l'aéronef
+ * @param callSign               l'indicatif de l'aéronef, ou null s'il est inconnu
+ * @param position               la position de l'aéronef, ou null si elle est inconnue
+ * @param altitude               l'altitude de l'aéronef, en mètres
+ * @param velocity               la vitesse de l'aéronef, en mètres par seconde
+ * @param trackOrHeading         la route ou le cap de l'aéronef, en radians
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public record AircraftSnapshot(IcaoAddress icaoAddress, AircraftData data, long lastMessageTimeStampNs, int category,
+                               CallSign callSign, GeoPos position, double altitude, double velocity,
+                               double trackOrHeading) {
+}
@@ -0,0 +1,124 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.adsb.AircraftStateSetter;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.aircraft.AircraftData;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.util.Objects;
+
+/**
+ * La classe AircraftState publique et finale représente l'état modifiable d'un aéronef, sans aucune dépendance
+ * à JavaFX. Elle n'est pas synchronisée : elle est destinée à être modifiée par un seul fil d'exécution, celui du
+ * moteur d'ingestion, les autres fils y accédant au moyen d'instantanés.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class AircraftState implements AircraftStateSetter {
+    private final IcaoAddress icaoAddress;
+    private AircraftData data;
+    private long lastMessageTimeStampNs;
+    private int category;
+    private CallSign callSign;
+    private GeoPos position;
+    private double altitude;
+    private double velocity;
+    private double trackOrHeading;
+
+
+    /**
+     * Le constructeur public de la classe AircraftState
+     *
+     * @param icaoAddress l'adresse OACI de l'aéronef
+     * @param data        les caractéristiques fixes de cet aéronef, ou null si elles sont inconnues
+     * @throws NullPointerException si l'adresse OACI est nulle
+     */
+    public AircraftState(IcaoAddress icaoAddress, AircraftData data) {
+        this.icaoAddress = Objects.requireNonNull(icaoAddress);
+        this.data = data;
+    }
+
+    /**
+     * Cette méthode retourne un instantané immuable de l'état de l'aéronef
+     *
+     * @return l'instantané de l'état actuel
+     */
+    public AircraftSnapshot snapshot() {
+        return new AircraftSnapshot(icaoAddress, data, lastMessageTimeStampNs, category, callSign, position,
+                altitude, velocity, trackOrHeading);
+    }
+
+    /**
+     * @return l'adresse OACI de l'aéronef
+     */
+    public IcaoAddress getIcaoAddress() {
+        return icaoAddress;
+    }
+
+    /**
+     * @return les caractéristiques fixes de l'aéronef, ou null si elles sont inconnues
+     */
+    public AircraftData getData() {
+        return data;
+    }
+
+    /**
+     * Cette méthode attache à l'état les données de l'aéronef, lorsque leur recherche asynchrone se termine
+     *
+     * @param data les données de l'aéronef
+     */
+    public void setData(AircraftData data) {
+        this.data = data;
+    }
+
+    /**
+     * @return l'horodatage du dernier message reçu de l'aéronef, en nanosecondes
+     */
+    public long getLastMessageTimeStampNs() {
+        return lastMessageTimeStampNs;
+    }
+
+    /**
+     * @return la position de l'aéronef, ou null si elle est encore inconnue
+     */
+    public GeoPos getPosition() {
+        return position;
+    }
+
+    @Override
+    public void setLastMessageTimeStampNs(long timeStampNs) {
+        lastMessageTimeStampNs = timeStampNs;
+    }
+
+    @Override
+    public void setCategory(int category) {
+        this.category = category;
+    }
+
+    @Override
+    public void setCallSign(CallSign callSign) {
+        this.callSign = callSign;
+    }
+
+    @Override
+    public void setPosition(GeoPos position) {
+        this.position = position;
+    }
+
+    @Override
+    public void setAltitude(double altitude) {
+        this.altitude = altitude;
+    }
+
+    @Override
+    public void setVelocity(double velocity) {
+        this.velocity = velocity;
+    }
+
+    @Override
+    public void setTrackOrHeading(double trackOrHeading) {
+        this.trackOrHeading = trackOrHeading;
+    }
+}
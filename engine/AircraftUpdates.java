@@ -0,0 +1,27 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * L'enregistrement AircraftUpdates public regroupe les modifications des états d'aéronefs survenues depuis la
+ * publication précédente : au plus un instantané par aéronef modifié, quel que soit le nombre de messages reçus
+ * de lui entre-temps, et les adresses des aéronefs oubliés.
+ *
+ * @param updated les instantanés des aéronefs visibles modifiés depuis la publication précédente
+ * @param removed les adresses OACI des aéronefs oubliés depuis la publication précédente
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public record AircraftUpdates(List<AircraftSnapshot> updated, Set<IcaoAddress> removed) {
+
+    /**
+     * Le constructeur compact de cet enregistrement copie les collections qui lui sont passées
+     */
+    public AircraftUpdates {
+        updated = List.copyOf(updated);
+        removed = Set.copyOf(removed);
+    }
+}
@@ -0,0 +1,82 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.AircraftMetadataService;
+import ch.epfl.javions.demodulation.AdsbDemodulator;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * La classe HeadlessMain publique et finale contient le programme principal sans interface graphique : il fait
+ * tourner le moteur d'ingestion et affiche périodiquement le nombre d'aéronefs visibles et de messages reçus.
+ * Sans argument, les messages sont obtenus en démodulant les échantillons lus sur l'entrée standard, sinon ils
+ * sont rejoués depuis le fichier dont le nom est donné. Une erreur de lecture de la source est signalée et termine
+ * le programme avec un code d'erreur. L'option --correct-errors active la correction des erreurs
+ * d'un seul bit lors de la démodulation, le nombre de messages corrigés étant alors affiché.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class HeadlessMain {
+    private static final String RESOURCE = "/aircraft.zip";
+    private static final String COMPILED_RESOURCE = "/aircraft.bin";
+    private static final long REPORT_PERIOD_MS = 1_000;
+    private static final long MILLISECOND = 1_000_000;
+    private static final int MEGABYTE = 1 << 20;
+    private static final String CORRECT_ERRORS = "--correct-errors";
+
+    /**
+     * La méthode main démarre le moteur d'ingestion et affiche son état jusqu'à ce que la source soit épuisée
+     *
+     * @param args les arguments du programme : éventuellement l'option --correct-errors et le nom du fichier de
+     *             messages à rejouer
+     * @throws Exception en cas d'erreur
+     */
+    public static void main(String[] args) throws Exception {
+        URL compiled = HeadlessMain.class.getResource(COMPILED_RESOURCE);
+        AircraftDatabase database = compiled != null
+                ? AircraftDatabase.openMapped(Path.of(compiled.toURI()).toString())
+                : AircraftDatabase.loadIndexed(
+                        Path.of(Objects.requireNonNull(HeadlessMain.class.getResource(RESOURCE)).toURI()).toString());
+        System.out.printf("Base de données : %d aéronefs indexés en %d ms, %.1f Mo en mémoire%n",
+                database.indexedCount(), database.loadTimeNs() / MILLISECOND,
+                (double) database.indexSizeBytes() / MEGABYTE);
+        boolean correctErrors = Arrays.asList(args).contains(CORRECT_ERRORS);
+        List<String> files = Arrays.stream(args).filter(arg -> !arg.equals(CORRECT_ERRORS)).toList();
+        AdsbDemodulator demodulator = files.isEmpty() ? new AdsbDemodulator(System.in, correctErrors) : null;
+        MessageSource source = demodulator != null
+                ? MessageSource.demodulating(demodulator)
+                : MessageSource.replaying(Path.of(files.get(0)));
+
+        AircraftMetadataService metadata = new AircraftMetadataService(database);
+        IngestionEngine engine = new IngestionEngine(source, metadata);
+        engine.start();
+        while (engine.isRunning()) {
+            Thread.sleep(REPORT_PERIOD_MS);
+            System.out.printf("Aéronefs visibles : %d, messages reçus : %d, cache : %d succès, %d inconnus, %d échecs%n",
+                    engine.snapshot().size(), engine.messageCount(),
+                    metadata.hitCount(), metadata.negativeHitCount(), metadata.missCount());
+            if (demodulator != null && correctErrors) {
+                System.out.printf("Messages corrigés : %d%n", demodulator.correctedMessageCount());
+            }
+        }
+        try {
+            engine.awaitTermination();
+            System.out.println("Source épuisée");
+        } catch (IOException e) {
+            System.err.printf("Lecture de la source interrompue : %s%n", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Constructeur privé de la classe non instantiable.
+     */
+    private HeadlessMain() {
+    }
+}
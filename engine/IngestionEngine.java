@@ -0,0 +1,298 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.AircraftStateAccumulator;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.adsb.MessageParser;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.aircraft.AircraftData;
+import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.AircraftMetadataService;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * La classe IngestionEngine publique et finale représente le moteur d'ingestion des messages ADS-B, indépendant
+ * de toute interface graphique. Elle possède deux fils d'exécution dédiés : le premier obtient les messages bruts
+ * de la source, le second les analyse et met à jour les états des aéronefs. L'interface graphique n'est qu'un
+ * consommateur facultatif de ce moteur, qui peut aussi tourner sur une machine dépourvue d'écran.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class IngestionEngine {
+    /**
+     * Le délai, en nanosecondes, au-delà duquel un aéronef dont aucun message n'a été reçu est oublié
+     */
+    public static final long PURGE_DELAY_NS = 60_000_000_000L;
+    private static final long PURGE_PERIOD_NS = 1_000_000_000L;
+    private static final long POLL_TIMEOUT_MS = 100;
+    // nombre maximal de messages bruts en attente d'analyse, au-delà duquel le fil de la source est bloqué
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final Logger LOGGER = System.getLogger(IngestionEngine.class.getName());
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final MessageSource source;
+    private final AircraftMetadataService metadata;
+    private final BlockingQueue<RawMessage> rawMessages = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // les aéronefs sont rangés par ordre d'accès, donc par horodatage croissant de leur dernier message : les
+    // premiers de la table sont les prochains à expirer, et seule la méthode update doit donc y accéder par get
+    private final Map<IcaoAddress, AircraftStateAccumulator<AircraftState>> accumulators =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    // les mêmes aéronefs, sans ordre, afin qu'un accès par get depuis attach ne modifie pas l'ordre ci-dessus
+    private final Map<IcaoAddress, AircraftState> states = new HashMap<>();
+    private final Map<IcaoAddress, AircraftState> updated = new HashMap<>();
+    private final Set<IcaoAddress> removed = new HashSet<>();
+    private final List<Consumer<Message>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread sourceThread;
+    private final Thread processingThread;
+    private volatile boolean sourceExhausted;
+    private volatile IOException failure;
+    private boolean trackingUpdates;
+    private volatile long messageCount;
+    private long currentTime;
+    private long lastPurge;
+
+
+    /**
+     * Le constructeur public de la classe IngestionEngine, qui ne démarre pas encore le moteur
+     *
+     * @param source   la source des messages bruts
+     * @param database la base de données des aéronefs
+     * @throws NullPointerException si l'un des arguments est nul
+     */
+    public IngestionEngine(MessageSource source, AircraftDatabase database) {
+        this(source, new AircraftMetadataService(database));
+    }
+
+    /**
+     * Le constructeur public de la classe IngestionEngine, dont les recherches dans la base de données sont
+     * effectuées par le service donné, sans bloquer le fil de traitement
+     *
+     * @param source   la source des messages bruts
+     * @param metadata le service de recherche des données des aéronefs
+     * @throws NullPointerException si l'un des arguments est nul
+     */
+    public IngestionEngine(MessageSource source, AircraftMetadataService metadata) {
+        this.source = Objects.requireNonNull(source);
+        this.metadata = Objects.requireNonNull(metadata);
+        sourceThread = new Thread(this::readSource, "javions-source");
+        processingThread = new Thread(this::processMessages, "javions-processing");
+        sourceThread.setDaemon(true);
+        processingThread.setDaemon(true);
+    }
+
+    /**
+     * Cette méthode ajoute un auditeur, appelé sur le fil de traitement avec chaque message analysé, après la mise
+     * à jour de l'état de l'aéronef correspondant. Elle doit être appelée avant le démarrage du moteur pour
+     * n'observer aucun message.
+     *
+     * @param listener l'auditeur à ajouter
+     */
+    public void addListener(Consumer<Message> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Cette méthode démarre les fils d'exécution du moteur
+     */
+    public void start() {
+        sourceThread.start();
+        processingThread.start();
+    }
+
+    /**
+     * Cette méthode arrête les fils d'exécution du moteur, sans attendre qu'ils aient terminé
+     */
+    public void stop() {
+        sourceThread.interrupt();
+        processingThread.interrupt();
+    }
+
+    /**
+     * Cette méthode attend que le moteur ait traité tous les messages de sa source
+     *
+     * @throws InterruptedException si le fil d'exécution appelant est interrompu pendant l'attente
+     * @throws IOException          si la lecture de la source a été interrompue par une erreur d'entrée/sortie,
+     *                              celle-ci étant alors levée une fois les messages déjà lus traités
+     */
+    public void awaitTermination() throws InterruptedException, IOException {
+        processingThread.join();
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Cette méthode permet de distinguer une source épuisée d'une source dont la lecture a échoué
+     *
+     * @return l'erreur d'entrée/sortie ayant interrompu la lecture de la source, ou null s'il n'y en a pas eu
+     */
+    public IOException failure() {
+        return failure;
+    }
+
+    /**
+     * @return vrai si et seulement si le moteur n'a pas encore traité tous les messages de sa source
+     */
+    public boolean isRunning() {
+        return processingThread.isAlive();
+    }
+
+    /**
+     * @return le nombre de messages analysés avec succès depuis le démarrage du moteur
+     */
+    public long messageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Cette méthode retourne un instantané des états des aéronefs dont la position est connue.
+     * Elle peut être appelée depuis n'importe quel fil d'exécution.
+     *
+     * @return la liste non modifiable des instantanés de ces états
+     */
+    public List<AircraftSnapshot> snapshot() {
+        synchronized (accumulators) {
+            List<AircraftSnapshot> snapshots = new ArrayList<>(accumulators.size());
+            for (AircraftStateAccumulator<AircraftState> accumulator : accumulators.values()) {
+                AircraftState state = accumulator.stateSetter();
+                if (state.getPosition() != null) snapshots.add(state.snapshot());
+            }
+            return List.copyOf(snapshots);
+        }
+    }
+
+    /**
+     * Cette méthode retourne les modifications des états des aéronefs survenues depuis son appel précédent,
+     * regroupées par aéronef. Elle est destinée à un unique consommateur, qui l'appelle à intervalles réguliers ;
+     * les modifications ne sont enregistrées qu'à partir de son premier appel.
+     *
+     * @return les modifications survenues depuis l'appel précédent
+     */
+    public AircraftUpdates pollUpdates() {
+        synchronized (accumulators) {
+            trackingUpdates = true;
+            List<AircraftSnapshot> snapshots = new ArrayList<>(updated.size());
+            for (AircraftState state : updated.values()) {
+                if (state.getPosition() != null) snapshots.add(state.snapshot());
+            }
+            AircraftUpdates updates = new AircraftUpdates(snapshots, removed);
+            updated.clear();
+            removed.clear();
+            return updates;
+        }
+    }
+
+    // Cette méthode, exécutée par le fil de la source, transmet les messages bruts au fil de traitement, en
+    // attendant que celui-ci ait fait de la place s'il a pris du retard ; une erreur de lecture est enregistrée
+    // avant que la source ne soit marquée comme épuisée
+    private void readSource() {
+        try {
+            RawMessage message;
+            while ((message = source.nextMessage()) != null) {
+                rawMessages.put(message);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sourceExhausted = true;
+        }
+    }
+
+    // Cette méthode, exécutée par le fil de traitement, analyse les messages bruts et met à jour les états
+    private void processMessages() {
+        try {
+            lastPurge = System.nanoTime();
+            while (!(sourceExhausted && rawMessages.isEmpty())) {
+                RawMessage rawMessage = rawMessages.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (rawMessage != null) {
+                    Message message = MessageParser.parse(rawMessage);
+                    if (message != null) {
+                        update(message);
+                        for (Consumer<Message> listener : listeners) listener.accept(message);
+                    }
+                }
+                if (System.nanoTime() - lastPurge >= PURGE_PERIOD_NS) {
+                    purge();
+                    lastPurge = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Cette méthode met à jour l'état de l'aéronef ayant envoyé le message donné
+    private void update(Message message) {
+        IcaoAddress key = message.icaoAddress();
+        synchronized (accumulators) {
+            AircraftStateAccumulator<AircraftState> accumulator = accumulators.get(key);
+            if (accumulator == null) {
+                AircraftState state = new AircraftState(key, null);
+                accumulator = new AircraftStateAccumulator<>(state);
+                accumulators.put(key, accumulator);
+                states.put(key, state);
+                metadata.lookup(key).whenComplete((data, failure) -> {
+                    if (failure != null) {
+                        LOGGER.log(Level.WARNING, "Recherche des données de l'aéronef " + key.string() + " échouée",
+                                failure);
+                    } else {
+                        attach(key, state, data);
+                    }
+                });
+            }
+            accumulator.update(message);
+            currentTime = message.timeStampNs();
+            if (trackingUpdates) updated.put(key, accumulator.stateSetter());
+        }
+        messageCount += 1;
+    }
+
+    // Cette méthode attache à l'état donné les données de l'aéronef, une fois leur recherche terminée ; l'état n'est
+    // signalé comme modifié que s'il est toujours celui de l'aéronef, et non celui d'un aéronef oublié entre-temps
+    private void attach(IcaoAddress key, AircraftState state, AircraftData data) {
+        if (data == null) return;
+        synchronized (accumulators) {
+            state.setData(data);
+            if (trackingUpdates && states.get(key) == state) updated.put(key, state);
+        }
+    }
+
+    // Cette méthode oublie les aéronefs dont aucun message n'a été reçu durant la minute précédant le dernier message ;
+    // seuls ceux qui expirent sont parcourus, plus le premier qui n'expire pas
+    private void purge() {
+        synchronized (accumulators) {
+            Iterator<Entry<IcaoAddress, AircraftStateAccumulator<AircraftState>>> iterator =
+                    accumulators.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry<IcaoAddress, AircraftStateAccumulator<AircraftState>> entry = iterator.next();
+                if (currentTime - entry.getValue().stateSetter().getLastMessageTimeStampNs() <= PURGE_DELAY_NS) break;
+                iterator.remove();
+                states.remove(entry.getKey());
+                if (trackingUpdates) {
+                    updated.remove(entry.getKey());
+                    removed.add(entry.getKey());
+                }
+            }
+        }
+    }
+}
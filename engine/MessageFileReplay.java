@@ -0,0 +1,52 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La classe MessageFileReplay représente une source rejouant un fichier de messages horodatés : chaque message
+ * n'est retourné qu'une fois écoulé, depuis le début de la lecture, le temps indiqué par son horodatage.
+ * Le fichier est lu au fur et à mesure, sans être chargé entièrement en mémoire.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class MessageFileReplay implements MessageSource {
+    private final DataInputStream stream;
+    private final byte[] bytes = new byte[RawMessage.LENGTH];
+    private long begin = -1;
+
+    /**
+     * Le constructeur de la classe MessageFileReplay
+     *
+     * @param file le fichier contenant les messages horodatés
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    MessageFileReplay(Path file) throws IOException {
+        stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+    }
+
+    @Override
+    public RawMessage nextMessage() throws IOException, InterruptedException {
+        long timeStampNs;
+        try {
+            timeStampNs = stream.readLong();
+            stream.readFully(bytes);
+        } catch (EOFException e) {
+            stream.close();
+            return null;
+        }
+        if (begin < 0) begin = System.nanoTime();
+        long delay = timeStampNs - (System.nanoTime() - begin);
+        if (delay > 0) TimeUnit.NANOSECONDS.sleep(delay);
+        return new RawMessage(timeStampNs, new ByteString(bytes));
+    }
+}
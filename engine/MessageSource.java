@@ -0,0 +1,63 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.demodulation.AdsbDemodulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * L'interface MessageSource publique représente une source de messages ADS-B bruts, consommée par le moteur
+ * d'ingestion sur son propre fil d'exécution.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+@FunctionalInterface
+public interface MessageSource {
+
+    /**
+     * Cette méthode retourne le prochain message brut de la source, en bloquant si nécessaire jusqu'à ce qu'il
+     * soit disponible
+     *
+     * @return le prochain message brut, ou null si la source est épuisée
+     * @throws IOException          en cas d'erreur d'entrée/sortie
+     * @throws InterruptedException si le fil d'exécution est interrompu pendant l'attente
+     */
+    RawMessage nextMessage() throws IOException, InterruptedException;
+
+    /**
+     * Cette méthode retourne une source obtenant les messages en démodulant les échantillons du flot donné
+     *
+     * @param samples le flot contenant les échantillons produits par la radio
+     * @return la source démodulant ce flot
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    static MessageSource demodulating(InputStream samples) throws IOException {
+        return demodulating(new AdsbDemodulator(samples));
+    }
+
+    /**
+     * Cette méthode retourne une source obtenant les messages du démodulateur donné, dont l'appelant peut ainsi
+     * consulter le nombre de messages corrigés
+     *
+     * @param demodulator le démodulateur
+     * @return la source obtenant ses messages de ce démodulateur
+     */
+    static MessageSource demodulating(AdsbDemodulator demodulator) {
+        return demodulator::nextMessage;
+    }
+
+    /**
+     * Cette méthode retourne une source rejouant les messages enregistrés dans le fichier donné, en respectant
+     * leurs horodatages
+     *
+     * @param file le fichier contenant les messages horodatés
+     * @return la source rejouant ce fichier
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    static MessageSource replaying(Path file) throws IOException {
+        return new MessageFileReplay(file);
+    }
+}
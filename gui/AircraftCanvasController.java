@@ -0,0 +1,469 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Units;
+import ch.epfl.javions.WebMercator;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ObjectProperty;
+import javafx.collections.ObservableSet;
+import javafx.collections.SetChangeListener;
+import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * La classe AircraftCanvasController publique et finale gère, comme AircraftController, la vue des aéronefs, mais
+ * dessine les icônes, les étiquettes, la trajectoire et la mise en évidence de l'aéronef sélectionné sur un unique
+ * canevas, redessiné au plus une fois par battement lorsque l'un des aéronefs ou la portion visible de la carte
+ * change. Aucun nœud ni aucun lien n'est ainsi créé par aéronef, ce qui permet d'afficher des milliers d'aéronefs.
+ * Les icônes sont copiées depuis un atlas d'images pré-calculées (AircraftSpriteAtlas), et les clics sont associés
+ * aux aéronefs au moyen d'un index spatial des icônes, reconstruit à chaque dessin. Seuls les aéronefs visibles,
+ * à AircraftController.CULL_MARGIN pixels près, et les segments de trajectoire traversant la portion visible sont
+ * dessinés ; hors regroupements, les aéronefs visibles sont obtenus au moyen d'un index spatial de leurs positions
+ * (AircraftSpatialIndex), sans parcourir tous les aéronefs.
+ * <p>
+ * Aux niveaux de zoom inférieurs ou égaux à un seuil donné, les aéronefs sont regroupés selon une grille de cellules
+ * de CLUSTER_CELL pixels (AircraftClusters) : chaque groupe de plusieurs aéronefs est dessiné comme un unique
+ * marqueur portant leur nombre, un clic sur celui-ci zoomant la carte autour de lui. Les aéronefs seuls dans leur
+ * cellule restent dessinés individuellement, de même que l'aéronef sélectionné, qui n'appartient à aucun groupe.
+ * <p>
+ * Le canevas ne capte pas les événements de la souris, afin que la carte qu'il recouvre puisse être déplacée ;
+ * les clics sont observés sur le parent du panneau, qui doit donc occuper la même zone que lui.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class AircraftCanvasController {
+    private static final double HIT_RADIUS = 12;
+    private static final double SELECTION_RADIUS = 14;
+    private static final double SELECTION_WIDTH = 2;
+    private static final double TRAJECTORY_WIDTH = 2;
+    private static final double LABEL_OFFSET = 10;
+    private static final double LABEL_MARGIN = 2;
+    private static final double LABEL_FONT_SIZE = 10;
+    private static final int LABEL_MIN_ZOOM = 11;
+    private static final Color LABEL_BACKGROUND = Color.rgb(255, 255, 255, 0.5);
+    private static final Color SELECTION_COLOR = Color.BLACK;
+    public static final int DEFAULT_CLUSTER_MAX_ZOOM = 8;
+    private static final double CLUSTER_CELL = 64;
+    private static final double CLUSTER_MIN_RADIUS = 10;
+    private static final double CLUSTER_MAX_RADIUS = 24;
+    private static final double CLUSTER_RADIUS_PER_DOUBLING = 2;
+    private static final double CLUSTER_STROKE_WIDTH = 1.5;
+    private static final Color CLUSTER_FILL = Color.rgb(255, 255, 255, 0.8);
+    private static final Color CLUSTER_STROKE = Color.rgb(51, 51, 51);
+
+    private final MapParameters parameters;
+    private final ObservableSet<ObservableAircraftState> aircraftStates;
+    private final ObjectProperty<ObservableAircraftState> selectedAircraftState;
+    private final Pane pane;
+    private final Canvas canvas;
+    private final AircraftHitIndex hitIndex = new AircraftHitIndex(HIT_RADIUS);
+    private final List<ObservableAircraftState> drawn = new ArrayList<>();
+    private final List<AircraftClusters.Cluster> drawnClusters = new ArrayList<>();
+    private final AircraftClusters clusters = new AircraftClusters(CLUSTER_CELL);
+    private final AircraftSpatialIndex spatialIndex;
+    private final Map<ObservableAircraftState, InvalidationListener> moveListeners = new HashMap<>();
+    private final Set<ObservableAircraftState> moved = new HashSet<>();
+    private final long spriteCacheBytes;
+    private final int clusterMaxZoom;
+    private AircraftSpriteAtlas atlas;
+    private final Font labelFont = Font.font(LABEL_FONT_SIZE);
+    private final Text labelMeasure = new Text();
+    private final InvalidationListener redrawListener = o -> redrawOnNextPulse();
+    private final EventHandler<MouseEvent> clickHandler = this::select;
+    private boolean redrawNeeded;
+
+
+    /**
+     * Le constructeur public de la classe AircraftCanvasController, dont l'atlas des icônes occupe au plus
+     * la mémoire par défaut
+     *
+     * @param parameters            les paramètres de la portion de la carte visible à l'écran.
+     * @param aircraftStates        l'ensemble (observable mais non modifiable) des états des aéronefs qui
+     *                              doivent apparaître sur la vue.
+     * @param selectedAircraftState une propriété JavaFX contenant l'état de l'aéronef sélectionné.
+     */
+    public AircraftCanvasController(MapParameters parameters, ObservableSet<ObservableAircraftState> aircraftStates,
+                                    ObjectProperty<ObservableAircraftState> selectedAircraftState) {
+        this(parameters, aircraftStates, selectedAircraftState, AircraftSpriteAtlas.DEFAULT_MAX_BYTES);
+    }
+
+
+    /**
+     * Le constructeur public de la classe AircraftCanvasController
+     *
+     * @param parameters            les paramètres de la portion de la carte visible à l'écran.
+     * @param aircraftStates        l'ensemble (observable mais non modifiable) des états des aéronefs qui
+     *                              doivent apparaître sur la vue.
+     * @param selectedAircraftState une propriété JavaFX contenant l'état de l'aéronef sélectionné.
+     * @param spriteCacheBytes      la mémoire maximale occupée par l'atlas des images des icônes, en octets
+     */
+    public AircraftCanvasController(MapParameters parameters, ObservableSet<ObservableAircraftState> aircraftStates,
+                                    ObjectProperty<ObservableAircraftState> selectedAircraftState,
+                                    long spriteCacheBytes) {
+        this(parameters, aircraftStates, selectedAircraftState, spriteCacheBytes, DEFAULT_CLUSTER_MAX_ZOOM);
+    }
+
+
+    /**
+     * Le constructeur public de la classe AircraftCanvasController
+     *
+     * @param parameters            les paramètres de la portion de la carte visible à l'écran.
+     * @param aircraftStates        l'ensemble (observable mais non modifiable) des états des aéronefs qui
+     *                              doivent apparaître sur la vue.
+     * @param selectedAircraftState une propriété JavaFX contenant l'état de l'aéronef sélectionné.
+     * @param spriteCacheBytes      la mémoire maximale occupée par l'atlas des images des icônes, en octets
+     * @param clusterMaxZoom        le niveau de zoom maximal auquel les aéronefs sont regroupés ; un niveau
+     *                              inférieur au zoom minimal de la carte désactive les regroupements
+     */
+    public AircraftCanvasController(MapParameters parameters, ObservableSet<ObservableAircraftState> aircraftStates,
+                                    ObjectProperty<ObservableAircraftState> selectedAircraftState,
+                                    long spriteCacheBytes, int clusterMaxZoom) {
+        this(parameters, aircraftStates, selectedAircraftState, spriteCacheBytes, clusterMaxZoom,
+                new AircraftSpatialIndex(aircraftStates));
+    }
+
+
+    /**
+     * Le constructeur public de la classe AircraftCanvasController, dont les aéronefs visibles sont obtenus au moyen
+     * de l'index spatial donné
+     *
+     * @param parameters            les paramètres de la portion de la carte visible à l'écran.
+     * @param aircraftStates        l'ensemble (observable mais non modifiable) des états des aéronefs qui
+     *                              doivent apparaître sur la vue.
+     * @param selectedAircraftState une propriété JavaFX contenant l'état de l'aéronef sélectionné.
+     * @param spriteCacheBytes      la mémoire maximale occupée par l'atlas des images des icônes, en octets
+     * @param clusterMaxZoom        le niveau de zoom maximal auquel les aéronefs sont regroupés ; un niveau
+     *                              inférieur au zoom minimal de la carte désactive les regroupements
+     * @param spatialIndex          l'index spatial des aéronefs de aircraftStates
+     */
+    public AircraftCanvasController(MapParameters parameters, ObservableSet<ObservableAircraftState> aircraftStates,
+                                    ObjectProperty<ObservableAircraftState> selectedAircraftState,
+                                    long spriteCacheBytes, int clusterMaxZoom, AircraftSpatialIndex spatialIndex) {
+        this.spatialIndex = spatialIndex;
+        this.spriteCacheBytes = spriteCacheBytes;
+        this.clusterMaxZoom = clusterMaxZoom;
+        this.parameters = parameters;
+        this.aircraftStates = aircraftStates;
+        this.selectedAircraftState = selectedAircraftState;
+        canvas = new Canvas();
+        canvas.setMouseTransparent(true);
+        pane = new Pane(canvas);
+        pane.setMouseTransparent(true);
+        labelMeasure.setFont(labelFont);
+        labelMeasure.setTextOrigin(VPos.TOP);
+        redrawNeeded = true;
+        bindings();
+        listeners();
+    }
+
+
+    /**
+     * méthode retournant le panneau JavaFX sur lequel les aéronefs sont affichés.
+     *
+     * @return le panneau contenant le canevas des aéronefs
+     */
+    public Pane pane() {
+        return pane;
+    }
+
+
+    /**
+     * Cette méthode retourne l'aéronef dont l'icône, telle que dessinée lors du dernier dessin, se trouve à la
+     * position donnée ; lorsque plusieurs icônes s'y superposent, celle dessinée au-dessus des autres est choisie
+     *
+     * @param x la coordonnée x de la position, dans le repère du panneau
+     * @param y la coordonnée y de la position, dans le repère du panneau
+     * @return l'état de cet aéronef, ou null s'il n'y en a aucun
+     */
+    public ObservableAircraftState aircraftAt(double x, double y) {
+        int index = hitIndex.indexAt(x, y) - drawnClusters.size();
+        return index < 0 ? null : drawn.get(index);
+    }
+
+
+    // Cette méthode privée effectue des liaisons (bindings)
+    private void bindings() {
+        canvas.widthProperty().bind(pane.widthProperty());
+        canvas.heightProperty().bind(pane.heightProperty());
+    }
+
+
+    //Cette méthode privée configure des listeners
+    private void listeners() {
+        canvas.sceneProperty().addListener((p, oldS, newS) -> {
+            assert oldS == null;
+            newS.addPreLayoutPulseListener(this::redrawIfNeeded);
+        });
+        pane.parentProperty().addListener((p, oldParent, newParent) -> {
+            if (oldParent != null) oldParent.removeEventHandler(MouseEvent.MOUSE_CLICKED, clickHandler);
+            if (newParent != null) newParent.addEventHandler(MouseEvent.MOUSE_CLICKED, clickHandler);
+        });
+
+        canvas.widthProperty().addListener(redrawListener);
+        canvas.heightProperty().addListener(redrawListener);
+        parameters.zoomProperty().addListener(redrawListener);
+        parameters.minX().addListener(redrawListener);
+        parameters.minY().addListener(redrawListener);
+        selectedAircraftState.addListener(redrawListener);
+        // l'aéronef précédemment sélectionné doit retrouver son groupe
+        selectedAircraftState.addListener((p, oldS, newS) -> {
+            if (oldS != null && aircraftStates.contains(oldS)) moved.add(oldS);
+        });
+
+        aircraftStates.forEach(this::observe);
+        aircraftStates.addListener((SetChangeListener<ObservableAircraftState>) change -> {
+            if (change.wasAdded()) observe(change.getElementAdded());
+            if (change.wasRemoved()) forget(change.getElementRemoved());
+            redrawOnNextPulse();
+        });
+    }
+
+
+    // Cette méthode sélectionne l'aéronef cliqué, ou zoome la carte autour du groupe cliqué, les clics terminant
+    // un glissement de la carte étant ignorés
+    private void select(MouseEvent e) {
+        if (!e.isStillSincePress()) return;
+        Point2D local = pane.sceneToLocal(e.getSceneX(), e.getSceneY());
+        int index = hitIndex.indexAt(local.getX(), local.getY());
+        if (index < 0) return;
+        if (index < drawnClusters.size()) {
+            parameters.scroll(-local.getX(), -local.getY());
+            parameters.changeZoomLevel(1);
+            parameters.scroll(local.getX(), local.getY());
+        } else {
+            selectedAircraftState.set(drawn.get(index - drawnClusters.size()));
+        }
+    }
+
+
+    // Cette méthode demande un nouveau dessin à chaque changement de l'une des propriétés dessinées de l'aéronef ;
+    // sa trajectoire ne change qu'avec sa position ou son altitude
+    private void observe(ObservableAircraftState aircraftState) {
+        InvalidationListener moveListener = o -> moved.add(aircraftState);
+        moveListeners.put(aircraftState, moveListener);
+        moved.add(aircraftState);
+        aircraftState.positionProperty().addListener(moveListener);
+        aircraftState.positionProperty().addListener(redrawListener);
+        aircraftState.altitudeProperty().addListener(redrawListener);
+        aircraftState.trackOrHeadingProperty().addListener(redrawListener);
+        aircraftState.velocityProperty().addListener(redrawListener);
+        aircraftState.callSignProperty().addListener(redrawListener);
+        aircraftState.dataProperty().addListener(redrawListener);
+    }
+
+
+    // Cette méthode retire les auditeurs ajoutés par observe
+    private void forget(ObservableAircraftState aircraftState) {
+        aircraftState.positionProperty().removeListener(moveListeners.remove(aircraftState));
+        moved.remove(aircraftState);
+        clusters.remove(aircraftState);
+        aircraftState.positionProperty().removeListener(redrawListener);
+        aircraftState.altitudeProperty().removeListener(redrawListener);
+        aircraftState.trackOrHeadingProperty().removeListener(redrawListener);
+        aircraftState.velocityProperty().removeListener(redrawListener);
+        aircraftState.callSignProperty().removeListener(redrawListener);
+        aircraftState.dataProperty().removeListener(redrawListener);
+    }
+
+
+    // Cette méthode privée redessine le canevas si un nouveau dessin est nécessaire
+    private void redrawIfNeeded() {
+        if (!redrawNeeded) return;
+        redrawNeeded = false;
+        GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
+        graphicsContext.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        ObservableAircraftState selected = selectedAircraftState.get();
+        if (selected != null && aircraftStates.contains(selected)) drawTrajectory(graphicsContext, selected);
+
+        // seuls les aéronefs visibles sont dessinés, les plus hauts en dernier, donc au-dessus des autres
+        drawn.clear();
+        drawnClusters.clear();
+        if (parameters.getZoom() <= clusterMaxZoom) {
+            collectClusters(selected);
+        } else {
+            clusters.clear();
+            double margin = AircraftController.CULL_MARGIN;
+            drawn.addAll(spatialIndex.within(positionAt(-margin, canvas.getHeight() + margin),
+                    positionAt(canvas.getWidth() + margin, -margin)));
+        }
+        moved.clear();
+        drawn.sort(Comparator.comparingDouble(ObservableAircraftState::getAltitude));
+
+        // les images des icônes sont rendues à l'échelle de l'écran affichant la fenêtre
+        double scale = canvas.getScene().getWindow() != null ? canvas.getScene().getWindow().getOutputScaleX() : 1;
+        if (atlas == null || atlas.scale() != scale) atlas = new AircraftSpriteAtlas(scale, spriteCacheBytes);
+        atlas.beginFrame();
+
+        hitIndex.reset(canvas.getWidth(), canvas.getHeight());
+        for (AircraftClusters.Cluster cluster : drawnClusters) {
+            double x = cluster.x() - parameters.getMinX();
+            double y = cluster.y() - parameters.getMinY();
+            hitIndex.add(x, y);
+            drawCluster(graphicsContext, cluster.size(), x, y);
+        }
+
+        boolean labels = parameters.getZoom() >= LABEL_MIN_ZOOM;
+        for (ObservableAircraftState aircraftState : drawn) {
+            double x = WebMercator.x(parameters.getZoom(), aircraftState.getPosition().longitude())
+                    - parameters.getMinX();
+            double y = WebMercator.y(parameters.getZoom(), aircraftState.getPosition().latitude())
+                    - parameters.getMinY();
+            AircraftIcon icon = AircraftController.iconFor(aircraftState);
+            double centerX = x + atlas.bounds(icon).getCenterX();
+            double centerY = y + atlas.bounds(icon).getCenterY();
+            hitIndex.add(centerX, centerY);
+
+            atlas.draw(graphicsContext, icon, Units.convertTo(aircraftState.getTrackOrHeading(), Units.Angle.DEGREE),
+                    Math.cbrt(aircraftState.getAltitude() / AircraftController.COLOR_CONSTANT), centerX, centerY);
+            if (aircraftState == selected) {
+                graphicsContext.setStroke(SELECTION_COLOR);
+                graphicsContext.setLineWidth(SELECTION_WIDTH);
+                graphicsContext.strokeOval(centerX - SELECTION_RADIUS, centerY - SELECTION_RADIUS,
+                        2 * SELECTION_RADIUS, 2 * SELECTION_RADIUS);
+            }
+            if (labels || aircraftState == selected) {
+                drawLabel(graphicsContext, aircraftState, centerX + LABEL_OFFSET, centerY + LABEL_OFFSET);
+            }
+        }
+    }
+
+
+    // Cette méthode met à jour les groupes, dont l'aéronef sélectionné est exclu, puis retient les groupes visibles
+    // de plusieurs aéronefs, et les aéronefs visibles seuls dans leur groupe ou sélectionnés
+    private void collectClusters(ObservableAircraftState selected) {
+        int zoom = parameters.getZoom();
+        if (clusters.zoom() != zoom) {
+            clusters.rebuild(zoom, aircraftStates);
+        } else {
+            for (ObservableAircraftState aircraftState : moved) clusters.update(aircraftState);
+        }
+        if (selected != null) clusters.remove(selected);
+
+        for (AircraftClusters.Cluster cluster : clusters.clusters()) {
+            double x = cluster.x() - parameters.getMinX();
+            double y = cluster.y() - parameters.getMinY();
+            double margin = AircraftController.CULL_MARGIN;
+            if (x < -margin || x > canvas.getWidth() + margin || y < -margin || y > canvas.getHeight() + margin) {
+                continue;
+            }
+            if (cluster.size() > 1) {
+                drawnClusters.add(cluster);
+            } else {
+                drawn.add(cluster.any());
+            }
+        }
+        if (selected != null && aircraftStates.contains(selected) && isVisible(selected)) drawn.add(selected);
+    }
+
+
+    // Cette méthode retourne vrai ssi la position de l'aéronef est connue et visible, à la marge près
+    private boolean isVisible(ObservableAircraftState aircraftState) {
+        return aircraftState.getPosition() != null && parameters.isVisible(aircraftState.getPosition(),
+                canvas.getWidth(), canvas.getHeight(), AircraftController.CULL_MARGIN);
+    }
+
+
+    // Cette méthode retourne la position correspondant au point donné du canevas, ramené sur la carte
+    private GeoPos positionAt(double x, double y) {
+        int zoom = parameters.getZoom();
+        double size = Math.scalb((double) BaseMapController.PIXELS, zoom);
+        double mapX = Math.max(0, Math.min(size, parameters.getMinX() + x));
+        double mapY = Math.max(0, Math.min(size, parameters.getMinY() + y));
+        long longitudeT32 = Math.round(Units.convertTo(WebMercator.longitude(zoom, mapX), Units.Angle.T32));
+        long latitudeT32 = Math.round(Units.convertTo(WebMercator.latitude(zoom, mapY), Units.Angle.T32));
+        return new GeoPos((int) Math.min(Integer.MAX_VALUE, longitudeT32), (int) latitudeT32);
+    }
+
+
+    // Cette méthode dessine le marqueur d'un groupe du nombre d'aéronefs donné, centré en (x, y), dont la taille
+    // croît avec le logarithme de ce nombre
+    private void drawCluster(GraphicsContext graphicsContext, int size, double x, double y) {
+        double radius = Math.min(CLUSTER_MAX_RADIUS,
+                CLUSTER_MIN_RADIUS + CLUSTER_RADIUS_PER_DOUBLING * Math.log(size) / Math.log(2));
+        graphicsContext.setFill(CLUSTER_FILL);
+        graphicsContext.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+        graphicsContext.setStroke(CLUSTER_STROKE);
+        graphicsContext.setLineWidth(CLUSTER_STROKE_WIDTH);
+        graphicsContext.strokeOval(x - radius, y - radius, 2 * radius, 2 * radius);
+        graphicsContext.setFill(Color.BLACK);
+        graphicsContext.setFont(labelFont);
+        graphicsContext.setTextAlign(TextAlignment.CENTER);
+        graphicsContext.setTextBaseline(VPos.CENTER);
+        graphicsContext.fillText(Integer.toString(size), x, y);
+        graphicsContext.setTextAlign(TextAlignment.LEFT);
+    }
+
+
+    // Cette méthode dessine l'étiquette de l'aéronef, dont le coin haut-gauche est placé en (x, y)
+    private void drawLabel(GraphicsContext graphicsContext, ObservableAircraftState aircraftState,
+                           double x, double y) {
+        String text = AircraftController.labelText(aircraftState);
+        labelMeasure.setText(text);
+        Bounds bounds = labelMeasure.getLayoutBounds();
+        graphicsContext.setFill(LABEL_BACKGROUND);
+        graphicsContext.fillRect(x, y, bounds.getWidth() + 2 * LABEL_MARGIN, bounds.getHeight() + 2 * LABEL_MARGIN);
+        graphicsContext.setFill(Color.BLACK);
+        graphicsContext.setFont(labelFont);
+        graphicsContext.setTextBaseline(VPos.TOP);
+        graphicsContext.fillText(text, x + LABEL_MARGIN, y + LABEL_MARGIN);
+    }
+
+
+    // Cette méthode dessine la trajectoire de l'aéronef, chaque segment étant coloré selon l'altitude ; les segments
+    // dont le rectangle englobant ne rencontre pas le canevas sont ignorés
+    private void drawTrajectory(GraphicsContext graphicsContext, ObservableAircraftState aircraftState) {
+        TrajectoryBuffer trajectory = aircraftState.getTrajectory();
+        int zoom = parameters.getZoom();
+        graphicsContext.setLineWidth(TRAJECTORY_WIDTH);
+        double previousX = 0, previousY = 0;
+        for (int i = 0; i < trajectory.size(); i++) {
+            double x = WebMercator.x(zoom, Units.convertFrom(trajectory.longitudeT32(i), Units.Angle.T32))
+                    - parameters.getMinX();
+            double y = WebMercator.y(zoom, Units.convertFrom(trajectory.latitudeT32(i), Units.Angle.T32))
+                    - parameters.getMinY();
+            if (i > 0 && isVisible(previousX, previousY, x, y)) {
+                graphicsContext.setStroke(AircraftController.TRAJECTORY_PAINTS.segment(trajectory.altitude(i - 1),
+                        trajectory.altitude(i), x - previousX, y - previousY));
+                graphicsContext.strokeLine(previousX, previousY, x, y);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+
+    // Cette méthode retourne vrai ssi le rectangle englobant le segment donné rencontre le canevas, à l'épaisseur
+    // des traits près
+    private boolean isVisible(double x1, double y1, double x2, double y2) {
+        return Math.max(x1, x2) >= -TRAJECTORY_WIDTH && Math.min(x1, x2) <= canvas.getWidth() + TRAJECTORY_WIDTH
+                && Math.max(y1, y2) >= -TRAJECTORY_WIDTH && Math.min(y1, y2) <= canvas.getHeight() + TRAJECTORY_WIDTH;
+    }
+
+
+    // Marque le besoin de redessiner et demande le prochain pulse à la plateforme
+    private void redrawOnNextPulse() {
+        redrawNeeded = true;
+        Platform.requestNextPulse();
+    }
+}
@@ -0,0 +1,178 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.WebMercator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * La classe AircraftClusters regroupe les aéronefs selon une grille de cellules carrées de la carte, à un niveau de
+ * zoom donné : tous les aéronefs d'une même cellule forment un groupe, affiché comme un unique marqueur. Les cellules
+ * étant fixes sur la carte, et non sur la portion visible, les groupes ne dépendent pas du déplacement de la carte ;
+ * ils sont mis à jour aéronef par aéronef lorsque leur position change, et ne sont reconstruits qu'au changement
+ * de niveau de zoom.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class AircraftClusters {
+    private static final int NO_ZOOM = -1;
+
+    private final double cellSize;
+    private final Map<Long, Cluster> clusters = new HashMap<>();
+    private final Map<ObservableAircraftState, Member> members = new HashMap<>();
+    private int zoom = NO_ZOOM;
+
+    /**
+     * Un groupe d'aéronefs, dont la position est la moyenne de celles de ses membres
+     */
+    static final class Cluster {
+        private final Set<ObservableAircraftState> aircraftStates = new HashSet<>();
+        private double sumX, sumY;
+
+        /**
+         * @return le nombre d'aéronefs du groupe
+         */
+        int size() {
+            return aircraftStates.size();
+        }
+
+        /**
+         * @return la coordonnée x de la position moyenne des aéronefs du groupe, au niveau de zoom des groupes
+         */
+        double x() {
+            return sumX / aircraftStates.size();
+        }
+
+        /**
+         * @return la coordonnée y de la position moyenne des aéronefs du groupe, au niveau de zoom des groupes
+         */
+        double y() {
+            return sumY / aircraftStates.size();
+        }
+
+        /**
+         * @return l'un des aéronefs du groupe, le seul si celui-ci n'en contient qu'un
+         */
+        ObservableAircraftState any() {
+            return aircraftStates.iterator().next();
+        }
+    }
+
+    // un aéronef regroupé : son groupe et sa position au niveau de zoom des groupes
+    private static final class Member {
+        private Cluster cluster;
+        private long cell;
+        private double x, y;
+    }
+
+
+    /**
+     * Le constructeur de la classe AircraftClusters
+     *
+     * @param cellSize la taille des cellules de la grille, en pixels
+     * @throws IllegalArgumentException si la taille n'est pas strictement positive
+     */
+    AircraftClusters(double cellSize) {
+        Preconditions.checkArgument(cellSize > 0);
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * @return le niveau de zoom des groupes, ou -1 s'ils sont vides après un appel à clear
+     */
+    int zoom() {
+        return zoom;
+    }
+
+    /**
+     * @return les groupes non vides
+     */
+    Collection<Cluster> clusters() {
+        return clusters.values();
+    }
+
+    /**
+     * Cette méthode reconstruit les groupes au niveau de zoom donné, à partir des aéronefs donnés
+     *
+     * @param zoom           le niveau de zoom
+     * @param aircraftStates les aéronefs à regrouper, ceux dont la position est inconnue étant ignorés
+     */
+    void rebuild(int zoom, Collection<ObservableAircraftState> aircraftStates) {
+        clear();
+        this.zoom = zoom;
+        for (ObservableAircraftState aircraftState : aircraftStates) update(aircraftState);
+    }
+
+    /**
+     * Cette méthode met à jour le groupe de l'aéronef donné selon sa position actuelle, l'ajoutant aux groupes s'il
+     * n'en faisait pas partie et l'en retirant si sa position est inconnue ; elle ne fait rien si les groupes
+     * sont vides après un appel à clear
+     *
+     * @param aircraftState l'aéronef
+     */
+    void update(ObservableAircraftState aircraftState) {
+        if (zoom == NO_ZOOM) return;
+        GeoPos position = aircraftState.getPosition();
+        if (position == null) {
+            remove(aircraftState);
+            return;
+        }
+        double x = WebMercator.x(zoom, position.longitude());
+        double y = WebMercator.y(zoom, position.latitude());
+        long cell = ((long) Math.floor(x / cellSize) << Integer.SIZE) | ((long) Math.floor(y / cellSize));
+
+        Member member = members.get(aircraftState);
+        if (member != null && member.cell == cell) {
+            member.cluster.sumX += x - member.x;
+            member.cluster.sumY += y - member.y;
+        } else {
+            if (member == null) {
+                member = new Member();
+                members.put(aircraftState, member);
+            } else {
+                leave(aircraftState, member);
+            }
+            member.cell = cell;
+            member.cluster = clusters.computeIfAbsent(cell, c -> new Cluster());
+            member.cluster.aircraftStates.add(aircraftState);
+            member.cluster.sumX += x;
+            member.cluster.sumY += y;
+        }
+        member.x = x;
+        member.y = y;
+    }
+
+    /**
+     * Cette méthode retire l'aéronef donné des groupes, s'il en faisait partie
+     *
+     * @param aircraftState l'aéronef
+     */
+    void remove(ObservableAircraftState aircraftState) {
+        Member member = members.remove(aircraftState);
+        if (member != null) leave(aircraftState, member);
+    }
+
+    /**
+     * Cette méthode vide les groupes, qui le restent jusqu'au prochain appel à rebuild
+     */
+    void clear() {
+        clusters.clear();
+        members.clear();
+        zoom = NO_ZOOM;
+    }
+
+    // Cette méthode retire l'aéronef donné de son groupe, supprimé s'il devient vide
+    private void leave(ObservableAircraftState aircraftState, Member member) {
+        Cluster cluster = member.cluster;
+        cluster.aircraftStates.remove(aircraftState);
+        cluster.sumX -= member.x;
+        cluster.sumY -= member.y;
+        if (cluster.aircraftStates.isEmpty()) clusters.remove(member.cell);
+    }
+}
@@ -1,48 +1,59 @@
 package ch.epfl.javions.gui;
 
+import ch.epfl.javions.GeoPos;
 import ch.epfl.javions.Units;
 import ch.epfl.javions.WebMercator;
 import ch.epfl.javions.aircraft.AircraftDescription;
 import ch.epfl.javions.aircraft.AircraftTypeDesignator;
 import ch.epfl.javions.aircraft.WakeTurbulenceCategory;
+import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
+import javafx.beans.binding.ObjectBinding;
 import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.ObservableSet;
 import javafx.collections.SetChangeListener;
 import javafx.scene.Group;
 import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.LinearGradient;
-import javafx.scene.paint.Stop;
-import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.SVGPath;
 import javafx.scene.text.Text;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 
 import static javafx.beans.binding.Bindings.createBooleanBinding;
 import static javafx.beans.binding.Bindings.createDoubleBinding;
-import static javafx.scene.paint.CycleMethod.NO_CYCLE;
 
 /**
  * La classe AircraftController publique et finale, gère la vue des aéronefs.
+ * Seuls les groupes des aéronefs visibles, à CULL_MARGIN pixels près, et celui de l'aéronef sélectionné sont
+ * attachés au panneau ; les autres en sont détachés, leurs liens n'étant alors plus évalués, et y sont rattachés
+ * lorsqu'ils entrent dans la portion visible. Leur visibilité est réévaluée une fois par battement : pour tous les
+ * aéronefs si la portion visible ou la sélection a changé, sinon pour ceux qui se sont déplacés seulement.
  * * @author Marwa Chiguer (325221)
  * * @author Imane Oujja (344332)
  */
 public final class AircraftController {
     public static final double COLOR_CONSTANT = 12000;
-    public static final int START_X = 0;
-    public static final int Y = 0;
-    public static final int END_X = 1;
+    static final TrajectoryPaints TRAJECTORY_PAINTS = new TrajectoryPaints(ColorRamp.PLASMA, COLOR_CONSTANT);
+    static final double CULL_MARGIN = 100;
 
     private final MapParameters parameters;
     private final ObservableSet<ObservableAircraftState> aircraftStates;
     private final ObjectProperty<ObservableAircraftState> selectedAircraftState;
     private final Pane aircraftPane;
+    private final Map<ObservableAircraftState, AircraftView> views = new HashMap<>();
+    private final Set<ObservableAircraftState> moved = new HashSet<>();
+    private boolean cullAll;
+
+    // le groupe d'un aéronef, et l'auditeur signalant ses déplacements
+    private record AircraftView(Group group, InvalidationListener moveListener) {
+    }
 
     /**
      * Le constructeur public prend en arguments :
@@ -61,6 +72,7 @@ public final class AircraftController {
         aircraftPane.setPickOnBounds(false);
         aircraftPane.getStylesheets().add("aircraft.css");
         observeAircraft();
+        observeViewport();
     }
 
     /**
@@ -76,47 +88,93 @@ public final class AircraftController {
     private void observeAircraft() {
         aircraftStates.addListener((SetChangeListener<ObservableAircraftState>) change -> {
             if (change.wasAdded()) {
-                // Ajouter un nouvel aéronef à la vue des aéronefs
+                // Ajouter un nouvel aéronef à la vue des aéronefs, qui sera attaché au panneau s'il est visible
                 ObservableAircraftState aircraftState = change.getElementAdded();
                 Group aircraftGroup = new Group();
                 aircraftGroup.getChildren().addAll(createIconLabelGroup(aircraftState), trajectory(aircraftState));
                 aircraftGroup.viewOrderProperty().bind(aircraftState.altitudeProperty().negate());
-                aircraftPane.getChildren().add(aircraftGroup);
+                InvalidationListener moveListener = o -> cullOnNextPulse(aircraftState);
+                aircraftState.positionProperty().addListener(moveListener);
+                views.put(aircraftState, new AircraftView(aircraftGroup, moveListener));
+                cullOnNextPulse(aircraftState);
 
             } else if (change.wasRemoved()) {
                 // Supprimer un aéronef de la vue des aéronefs
                 ObservableAircraftState aircraftState = change.getElementRemoved();
-                String aircraftIcaoAddress = aircraftState.getIcaoAddress().string();
-                aircraftPane.getChildren().removeIf(node ->
-                        node.getId().equals(aircraftIcaoAddress));
+                AircraftView view = views.remove(aircraftState);
+                aircraftState.positionProperty().removeListener(view.moveListener());
+                moved.remove(aircraftState);
+                if (view.group().getParent() != null) aircraftPane.getChildren().remove(view.group());
             }
         });
     }
 
 
-    // Méthode créant le SVGPath de l'icone
-    private SVGPath createIcon(ObservableAircraftState aircraftState) {
-        AircraftIcon aircraftIcon;
+    //Observation de la portion visible et de la sélection, dont les changements modifient la visibilité de tous
+    private void observeViewport() {
+        InvalidationListener viewportListener = o -> {
+            cullAll = true;
+            Platform.requestNextPulse();
+        };
+        parameters.zoomProperty().addListener(viewportListener);
+        parameters.minX().addListener(viewportListener);
+        parameters.minY().addListener(viewportListener);
+        aircraftPane.widthProperty().addListener(viewportListener);
+        aircraftPane.heightProperty().addListener(viewportListener);
+        selectedAircraftState.addListener(viewportListener);
+
+        aircraftPane.sceneProperty().addListener((p, oldS, newS) -> {
+            assert oldS == null;
+            newS.addPreLayoutPulseListener(this::cullIfNeeded);
+        });
+    }
 
-        if (aircraftState.getData() != null) {
-            AircraftTypeDesignator type = aircraftState.getData().typeDesignator();
-            AircraftDescription description = aircraftState.getData().description();
-            int category = aircraftState.getCategory();
-            WakeTurbulenceCategory wakeTurbulenceCategory = aircraftState.getData().wakeTurbulenceCategory();
-            aircraftIcon = AircraftIcon.iconFor(type, description, category, wakeTurbulenceCategory);
+
+    // Marque l'aéronef donné comme devant voir sa visibilité réévaluée au prochain battement
+    private void cullOnNextPulse(ObservableAircraftState aircraftState) {
+        moved.add(aircraftState);
+        Platform.requestNextPulse();
+    }
+
+
+    // Attache au panneau les groupes des aéronefs devenus visibles, et en détache ceux des aéronefs devenus invisibles
+    private void cullIfNeeded() {
+        if (cullAll) {
+            views.forEach(this::cull);
         } else {
-            aircraftIcon = AircraftIcon.iconFor(new AircraftTypeDesignator(""), new AircraftDescription(""),
-                    aircraftState.getCategory(), WakeTurbulenceCategory.UNKNOWN);
+            for (ObservableAircraftState aircraftState : moved) cull(aircraftState, views.get(aircraftState));
         }
+        cullAll = false;
+        moved.clear();
+    }
+
+
+    // Attache ou détache le groupe de l'aéronef donné selon sa visibilité
+    private void cull(ObservableAircraftState aircraftState, AircraftView view) {
+        GeoPos position = aircraftState.getPosition();
+        boolean visible = aircraftState == selectedAircraftState.get() || (position != null
+                && parameters.isVisible(position, aircraftPane.getWidth(), aircraftPane.getHeight(), CULL_MARGIN));
+        boolean attached = view.group().getParent() != null;
+        if (visible && !attached) {
+            aircraftPane.getChildren().add(view.group());
+        } else if (!visible && attached) {
+            aircraftPane.getChildren().remove(view.group());
+        }
+    }
+
+
+    // Méthode créant le SVGPath de l'icone, qui est recalculée lorsque les données de l'aéronef arrivent
+    private SVGPath createIcon(ObservableAircraftState aircraftState) {
+        ObjectBinding<AircraftIcon> aircraftIcon = Bindings.createObjectBinding(() -> iconFor(aircraftState),
+                aircraftState.dataProperty());
         SVGPath icon = new SVGPath();
-        icon.setContent(aircraftIcon.svgPath());
         icon.getStyleClass().add("aircraft");
 
         // bindings
-        icon.contentProperty().bind(new SimpleStringProperty(aircraftIcon.svgPath()));
-        icon.rotateProperty().bind(Bindings.createDoubleBinding(() -> (aircraftIcon.canRotate()) ?
+        icon.contentProperty().bind(aircraftIcon.map(AircraftIcon::svgPath));
+        icon.rotateProperty().bind(Bindings.createDoubleBinding(() -> (aircraftIcon.get().canRotate()) ?
                         Units.convertTo(aircraftState.getTrackOrHeading(), Units.Angle.DEGREE) : 0d,
-                aircraftState.trackOrHeadingProperty()));
+                aircraftState.trackOrHeadingProperty(), aircraftIcon));
         icon.fillProperty().bind(aircraftState.altitudeProperty().map((b) ->
                 ColorRamp.PLASMA.at(Math.cbrt(aircraftState.getAltitude() / COLOR_CONSTANT))));
 
@@ -126,6 +184,47 @@ public final class AircraftController {
     }
 
 
+    /**
+     * Cette méthode retourne l'icône correspondant aux données actuelles de l'aéronef
+     *
+     * @param aircraftState l'état de l'aéronef
+     * @return l'icône de l'aéronef
+     */
+    static AircraftIcon iconFor(ObservableAircraftState aircraftState) {
+        if (aircraftState.getData() != null) {
+            AircraftTypeDesignator type = aircraftState.getData().typeDesignator();
+            AircraftDescription description = aircraftState.getData().description();
+            int category = aircraftState.getCategory();
+            WakeTurbulenceCategory wakeTurbulenceCategory = aircraftState.getData().wakeTurbulenceCategory();
+            return AircraftIcon.iconFor(type, description, category, wakeTurbulenceCategory);
+        }
+        return AircraftIcon.iconFor(new AircraftTypeDesignator(""), new AircraftDescription(""),
+                aircraftState.getCategory(), WakeTurbulenceCategory.UNKNOWN);
+    }
+
+
+    /**
+     * Cette méthode retourne le texte, sur deux lignes, de l'étiquette de l'aéronef
+     *
+     * @param aircraftState l'état de l'aéronef
+     * @return le texte de l'étiquette
+     */
+    static String labelText(ObservableAircraftState aircraftState) {
+        String firstPart = "", secondPart = "";
+        if (aircraftState.getData() != null) {
+            firstPart = aircraftState.getData().registration() != null ?
+                    aircraftState.getData().registration().string() :
+                    aircraftState.getCallSign() != null ? aircraftState.getCallSign().string() :
+                            aircraftState.getIcaoAddress().string();
+            secondPart = (aircraftState.velocityProperty() != null ?
+                    (int) (aircraftState.getVelocity()) : "?") + "  Km/h " +
+                    (aircraftState.altitudeProperty() != null ?
+                            (int) (aircraftState.getAltitude()) : "?") + "  m";
+        }
+        return firstPart + "\n" + secondPart;
+    }
+
+
     //Méthode créant le groupe de l'étiquette
     private Group createLabel(ObservableAircraftState aircraftState) {
         Text label = new Text();
@@ -134,21 +233,9 @@ public final class AircraftController {
         labelGroup.getStyleClass().add("label");
 
         //bindings
-        label.textProperty().bind(Bindings.createStringBinding(() -> {
-                    String firstPart = "", secondPart = "";
-                    if (aircraftState.getData() != null) {
-                        firstPart = aircraftState.getData().registration() != null ?
-                                aircraftState.getData().registration().string() :
-                                aircraftState.getCallSign() != null ? aircraftState.getCallSign().string() :
-                                        aircraftState.getIcaoAddress().string();
-                        secondPart = (aircraftState.velocityProperty() != null ?
-                                (int) (aircraftState.getVelocity()) : "?") + "  Km/h " +
-                                (aircraftState.altitudeProperty() != null ?
-                                        (int) (aircraftState.getAltitude()) : "?") + "  m";
-                    }
-                    return firstPart + "\n" + secondPart;
-                }, aircraftState.altitudeProperty(),
-                aircraftState.velocityProperty(), aircraftState.callSignProperty()));
+        label.textProperty().bind(Bindings.createStringBinding(() -> labelText(aircraftState),
+                aircraftState.altitudeProperty(), aircraftState.velocityProperty(),
+                aircraftState.callSignProperty(), aircraftState.dataProperty()));
 
 
         //bindings
@@ -191,70 +278,30 @@ public final class AircraftController {
     private Group trajectory(ObservableAircraftState aircraftState) {
         Group trajectoryGroup = new Group();
         trajectoryGroup.getStyleClass().add("trajectory");
+        TrajectoryView view = new TrajectoryView(trajectoryGroup, TRAJECTORY_PAINTS);
 
         //listeners
-        InvalidationListener listener = change -> drawTrajectory(aircraftState, trajectoryGroup);
-        InvalidationListener trajectoryList= change-> drawTrajectory(aircraftState, trajectoryGroup);
+        InvalidationListener listener = change -> view.update(aircraftState.getTrajectory(), parameters.getZoom());
 
         trajectoryGroup.visibleProperty().addListener((observable, oldV, newV) -> {
             if (newV) {
-                aircraftState.getUnmodifiableTrajectory().addListener(trajectoryList);
+                aircraftState.trajectoryVersionProperty().addListener(listener);
                 parameters.zoomProperty().addListener(listener);
-                drawTrajectory(aircraftState, trajectoryGroup);
+                view.update(aircraftState.getTrajectory(), parameters.getZoom());
             } else {
-                aircraftState.getUnmodifiableTrajectory().removeListener(trajectoryList);
+                aircraftState.trajectoryVersionProperty().removeListener(listener);
                 parameters.zoomProperty().removeListener(listener);
-                trajectoryGroup.getChildren().clear();
+                view.clear();
             }
         });
 
-        //binding
+        //bindings
         trajectoryGroup.visibleProperty().bind(selectedAircraftState.isEqualTo(aircraftState));
+        trajectoryGroup.layoutXProperty().bind(parameters.minX().negate());
+        trajectoryGroup.layoutYProperty().bind(parameters.minY().negate());
 
         return trajectoryGroup;
     }
 
-    //Méthode dessinant la trajectoire
-    public void drawTrajectory(ObservableAircraftState aircraftState, Group group) {
-        group.getChildren().clear();
-        List<ObservableAircraftState.AirbornePos> airbonePos = aircraftState.getUnmodifiableTrajectory();
-        List<ObservableAircraftState.AirbornePos> set = airbonePos.subList(1, airbonePos.size());
-        ObservableAircraftState.AirbornePos start = airbonePos.get(0);
-        for (ObservableAircraftState.AirbornePos next : set) {
-            Line line = Lines(start, next);
-            group.getChildren().addAll(line);
-            start = next;
-        }
-    }
-
-
-    //Méthode créant les lignes de trajectoire
-    private Line Lines(ObservableAircraftState.AirbornePos start, ObservableAircraftState.AirbornePos end) {
-        Line line = new Line(WebMercator.x(parameters.getZoom(), start.position().longitude()),
-                WebMercator.y(parameters.getZoom(), start.position().latitude()),
-                WebMercator.x(parameters.getZoom(), end.position().longitude()),
-                WebMercator.y(parameters.getZoom(), end.position().latitude()));
-        line.getStyleClass().add("trajectory Line");
-
-        //bindings
-        line.layoutXProperty().bind(parameters.minX().negate());
-        line.layoutYProperty().bind(parameters.minY().negate());
-
-        Color c1 = ColorRamp.PLASMA.at(Math.cbrt(end.altitude()) / COLOR_CONSTANT);
-        Color c2 = ColorRamp.PLASMA.at(Math.cbrt(start.altitude()) / COLOR_CONSTANT);
-
-
-        if (start.altitude() == end.altitude()) {
-            line.setStroke(c1);
-        } else {
-            LinearGradient lineGradient = new LinearGradient(START_X, Y, END_X, Y, true,
-                    NO_CYCLE, new Stop(0, c2), new Stop(1, c1));
-            line.setStroke(lineGradient);
-        }
-        return line;
-    }
-
 
 }
-
-
@@ -0,0 +1,125 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * La classe AircraftHitIndex est un index spatial des points dessinés sur une surface, permettant de retrouver en
+ * temps constant le point dessiné en dernier à proximité d'une position donnée, par exemple d'un clic. La surface
+ * est découpée en une grille de cellules carrées, chaque cellule mémorisant la liste chaînée (dans des tableaux)
+ * des points qu'elle contient, du plus récent au plus ancien.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class AircraftHitIndex {
+    private static final int INITIAL_CAPACITY = 1 << 8;
+    private static final int NONE = -1;
+
+    private final double radius;
+    private final double cellSize;
+    private int columns;
+    private int rows;
+    private int[] heads = new int[0];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Le constructeur de la classe AircraftHitIndex
+     *
+     * @param radius la distance maximale, en pixels, entre une position et un point pour que celui-ci soit trouvé
+     * @throws IllegalArgumentException si la distance n'est pas strictement positive
+     */
+    AircraftHitIndex(double radius) {
+        Preconditions.checkArgument(radius > 0);
+        this.radius = radius;
+        this.cellSize = radius;
+    }
+
+    /**
+     * Cette méthode vide l'index et l'adapte à une surface de dimensions données
+     *
+     * @param width  la largeur de la surface, en pixels
+     * @param height la hauteur de la surface, en pixels
+     */
+    void reset(double width, double height) {
+        columns = (int) Math.ceil(width / cellSize) + 2;
+        rows = (int) Math.ceil(height / cellSize) + 2;
+        if (heads.length < columns * rows) heads = new int[columns * rows];
+        Arrays.fill(heads, 0, columns * rows, NONE);
+        size = 0;
+    }
+
+    /**
+     * Cette méthode ajoute un point à l'index ; les points suffisamment éloignés de la surface sont ignorés, mais
+     * reçoivent tout de même un index
+     *
+     * @param x la coordonnée x du point, en pixels
+     * @param y la coordonnée y du point, en pixels
+     * @return l'index du point, égal au nombre de points ajoutés avant lui
+     */
+    int add(double x, double y) {
+        if (size == xs.length) {
+            next = Arrays.copyOf(next, 2 * size);
+            xs = Arrays.copyOf(xs, 2 * size);
+            ys = Arrays.copyOf(ys, 2 * size);
+        }
+        int index = size++;
+        xs[index] = x;
+        ys[index] = y;
+        int cell = cell(x, y);
+        if (cell != NONE) {
+            next[index] = heads[cell];
+            heads[cell] = index;
+        }
+        return index;
+    }
+
+    /**
+     * Cette méthode retourne l'index du point ajouté en dernier parmi ceux proches de la position donnée
+     *
+     * @param x la coordonnée x de la position, en pixels
+     * @param y la coordonnée y de la position, en pixels
+     * @return l'index de ce point, ou -1 si aucun point n'est à une distance inférieure au rayon de la position
+     */
+    int indexAt(double x, double y) {
+        int column = column(x);
+        int row = row(y);
+        int found = NONE;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                // les listes étant triées du plus récent au plus ancien, la recherche s'arrête au premier trouvé
+                for (int i = heads[r * columns + c]; i > found; i = next[i]) {
+                    double dx = xs[i] - x;
+                    double dy = ys[i] - y;
+                    if (dx * dx + dy * dy <= radius * radius) {
+                        found = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // Cette méthode retourne l'index de la cellule contenant le point donné, ou -1 s'il est hors de la grille
+    private int cell(double x, double y) {
+        int column = column(x);
+        int row = row(y);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return NONE;
+        return row * columns + column;
+    }
+
+    // Cette méthode retourne la colonne contenant la coordonnée x donnée, la première colonne bordant la surface
+    private int column(double x) {
+        return (int) Math.floor(x / cellSize) + 1;
+    }
+
+    // Cette méthode retourne la ligne contenant la coordonnée y donnée, la première ligne bordant la surface
+    private int row(double y) {
+        return (int) Math.floor(y / cellSize) + 1;
+    }
+}
@@ -0,0 +1,313 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.Units;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ObservableSet;
+import javafx.collections.SetChangeListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * La classe publique et finale AircraftSpatialIndex est un index spatial des positions des aéronefs d'un ensemble
+ * observable, permettant de trouver les aéronefs d'une zone sans parcourir tout l'ensemble. Les positions sont
+ * rangées dans une grille de cellules de 2^CELL_BITS unités T32 de côté (environ 0.35°), et l'index est tenu à jour
+ * aéronef par aéronef, à chaque ajout ou suppression d'un aéronef et à chaque changement de sa position.
+ * <p>
+ * L'index permet de rechercher les aéronefs contenus dans un rectangle de coordonnées géographiques, ceux situés
+ * à une distance donnée d'une position, et les k aéronefs les plus proches d'une position. Les distances sont
+ * mesurées le long d'un grand cercle de la Terre, supposée sphérique. Comme les états qu'il indexe, l'index ne doit
+ * être utilisé que depuis le fil d'exécution de JavaFX.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class AircraftSpatialIndex {
+    public static final double EARTH_RADIUS = 6_371 * Units.Length.KILOMETER;
+    private static final int CELL_BITS = 22;
+    private static final int COLUMNS = 1 << (Integer.SIZE - CELL_BITS);
+    private static final int MAX_LATITUDE_T32 = 1 << 30;
+    private static final int MAX_RING = 8;
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private static final Comparator<Neighbor> FARTHEST_FIRST =
+            Comparator.comparingDouble(Neighbor::distance).reversed();
+
+    private final Map<Long, List<ObservableAircraftState>> cells = new HashMap<>();
+    private final Map<ObservableAircraftState, Entry> entries = new HashMap<>();
+
+    // un aéronef candidat à la recherche des plus proches voisins, et sa distance à la position recherchée
+    private record Neighbor(ObservableAircraftState aircraftState, double distance) {
+    }
+
+    // la cellule d'un aéronef indexé, et l'auditeur signalant les changements de sa position
+    private static final class Entry {
+        private final InvalidationListener positionListener;
+        private long cell = NO_CELL;
+
+        private Entry(InvalidationListener positionListener) {
+            this.positionListener = positionListener;
+        }
+    }
+
+
+    /**
+     * Le constructeur public de la classe AircraftSpatialIndex, qui indexe les aéronefs de l'ensemble donné, puis
+     * observe celui-ci
+     *
+     * @param aircraftStates l'ensemble observable des états des aéronefs à indexer
+     */
+    public AircraftSpatialIndex(ObservableSet<ObservableAircraftState> aircraftStates) {
+        aircraftStates.forEach(this::add);
+        aircraftStates.addListener((SetChangeListener<ObservableAircraftState>) change -> {
+            if (change.wasAdded()) add(change.getElementAdded());
+            if (change.wasRemoved()) remove(change.getElementRemoved());
+        });
+    }
+
+
+    /**
+     * Cette méthode retourne les aéronefs dont la position se trouve dans le rectangle de coordonnées géographiques
+     * donné ; le rectangle traverse l'antiméridien si la longitude de son coin sud-ouest est supérieure à celle de
+     * son coin nord-est
+     *
+     * @param southWest le coin sud-ouest du rectangle
+     * @param northEast le coin nord-est du rectangle
+     * @return la liste, dans un ordre quelconque, des aéronefs contenus dans le rectangle
+     * @throws IllegalArgumentException si la latitude du coin sud-ouest est supérieure à celle du coin nord-est
+     */
+    public List<ObservableAircraftState> within(GeoPos southWest, GeoPos northEast) {
+        Preconditions.checkArgument(southWest.latitudeT32() <= northEast.latitudeT32());
+        List<ObservableAircraftState> result = new ArrayList<>();
+        collect(southWest.longitudeT32(), northEast.longitudeT32(), southWest.latitudeT32(),
+                northEast.latitudeT32(), result);
+        return result;
+    }
+
+
+    /**
+     * Cette méthode retourne les aéronefs situés à la distance donnée, au plus, de la position donnée
+     *
+     * @param center la position
+     * @param radius la distance maximale, en mètres
+     * @return la liste, dans un ordre quelconque, des aéronefs situés à cette distance au plus de la position
+     * @throws IllegalArgumentException si la distance est négative
+     */
+    public List<ObservableAircraftState> withinRadius(GeoPos center, double radius) {
+        Preconditions.checkArgument(radius >= 0);
+        List<ObservableAircraftState> result = new ArrayList<>();
+        collectWithinRadius(center, radius, result);
+        return result;
+    }
+
+
+    /**
+     * Cette méthode retourne les k aéronefs les plus proches de la position donnée
+     *
+     * @param center la position
+     * @param k      le nombre d'aéronefs
+     * @return la liste des k aéronefs les plus proches de la position, ou de tous s'il y en a moins, par distance
+     * croissante à celle-ci
+     * @throws IllegalArgumentException si k est négatif
+     */
+    public List<ObservableAircraftState> nearest(GeoPos center, int k) {
+        Preconditions.checkArgument(k >= 0);
+        List<ObservableAircraftState> candidates = new ArrayList<>();
+        if (k == 0) return candidates;
+
+        // parcours des anneaux de cellules entourant la position, jusqu'à trouver au moins k candidats
+        int column = center.longitudeT32() >> CELL_BITS;
+        int row = center.latitudeT32() >> CELL_BITS;
+        for (int ring = 0; ring <= MAX_RING && candidates.size() < k; ring++) {
+            for (int dRow = -ring; dRow <= ring; dRow++) {
+                int step = Math.abs(dRow) == ring ? 1 : 2 * ring;
+                for (int dColumn = -ring; dColumn <= ring; dColumn += step) {
+                    List<ObservableAircraftState> cell = cells.get(key(column + dColumn, row + dRow));
+                    if (cell != null) candidates.addAll(cell);
+                }
+            }
+        }
+
+        if (candidates.size() < k) {
+            // les anneaux parcourus sont trop clairsemés, tous les aéronefs sont candidats
+            candidates.clear();
+            for (List<ObservableAircraftState> cell : cells.values()) candidates.addAll(cell);
+        } else {
+            // les k plus proches sont à une distance au plus égale à celle du k-ième candidat, mais pas
+            // forcément parmi les candidats, les cellules n'étant pas carrées sur la Terre
+            List<Neighbor> closest = closest(center, candidates, k);
+            double radius = closest.get(closest.size() - 1).distance();
+            candidates.clear();
+            collectWithinRadius(center, radius, candidates);
+        }
+
+        List<ObservableAircraftState> result = new ArrayList<>(Math.min(k, candidates.size()));
+        for (Neighbor neighbor : closest(center, candidates, k)) result.add(neighbor.aircraftState());
+        return result;
+    }
+
+
+    /**
+     * Cette méthode retourne la distance entre les deux positions données
+     *
+     * @param p1 la première position
+     * @param p2 la seconde position
+     * @return la longueur, en mètres, du plus court chemin entre les positions le long d'un grand cercle de la Terre
+     */
+    public static double distance(GeoPos p1, GeoPos p2) {
+        double sinHalfDLatitude = Math.sin((p2.latitude() - p1.latitude()) / 2);
+        double sinHalfDLongitude = Math.sin((p2.longitude() - p1.longitude()) / 2);
+        double h = sinHalfDLatitude * sinHalfDLatitude
+                + Math.cos(p1.latitude()) * Math.cos(p2.latitude()) * sinHalfDLongitude * sinHalfDLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+
+    // Cette méthode retourne les k candidats les plus proches de la position donnée, par distance croissante, au
+    // moyen d'un tas borné à k éléments dont la racine est le plus éloigné
+    private static List<Neighbor> closest(GeoPos center, List<ObservableAircraftState> candidates, int k) {
+        PriorityQueue<Neighbor> heap = new PriorityQueue<>(k, FARTHEST_FIRST);
+        for (ObservableAircraftState aircraftState : candidates) {
+            double distance = distance(center, aircraftState.getPosition());
+            if (heap.size() < k) {
+                heap.add(new Neighbor(aircraftState, distance));
+            } else if (distance < heap.peek().distance()) {
+                heap.poll();
+                heap.add(new Neighbor(aircraftState, distance));
+            }
+        }
+        List<Neighbor> closest = new ArrayList<>(heap);
+        closest.sort(FARTHEST_FIRST.reversed());
+        return closest;
+    }
+
+
+    // Cette méthode ajoute à la liste les aéronefs situés à la distance donnée, au plus, de la position, parmi
+    // ceux du rectangle englobant le cercle de ce rayon
+    private void collectWithinRadius(GeoPos center, double radius, List<ObservableAircraftState> result) {
+        double angle = radius / EARTH_RADIUS;
+        double latitude = center.latitude();
+        double south = latitude - angle;
+        double north = latitude + angle;
+        int start = result.size();
+
+        // le cercle contient un pôle, ou l'écart de longitude maximal est celui des points de tangence des méridiens
+        double halfTurn = Units.Angle.TURN / 2;
+        if (south <= -halfTurn / 2 || north >= halfTurn / 2 || Math.sin(angle) >= Math.cos(latitude)) {
+            collect(Integer.MIN_VALUE, Integer.MAX_VALUE, toLatitudeT32(south), toLatitudeT32(north), result);
+        } else {
+            long dLongitude = (long) Math.ceil(Units.convertTo(Math.asin(Math.sin(angle) / Math.cos(latitude)),
+                    Units.Angle.T32));
+            int west = (int) (center.longitudeT32() - dLongitude);
+            int east = (int) (center.longitudeT32() + dLongitude);
+            collect(west, east, toLatitudeT32(south), toLatitudeT32(north), result);
+        }
+
+        // seuls les aéronefs du cercle sont conservés
+        int kept = start;
+        for (int i = start; i < result.size(); i++) {
+            ObservableAircraftState aircraftState = result.get(i);
+            if (distance(center, aircraftState.getPosition()) <= radius) result.set(kept++, aircraftState);
+        }
+        result.subList(kept, result.size()).clear();
+    }
+
+
+    // Cette méthode ajoute à la liste les aéronefs du rectangle donné en unités T32, traversant l'antiméridien si
+    // west > east, en parcourant les cellules du rectangle, ou toutes les cellules non vides si elles sont moins
+    // nombreuses
+    private void collect(int west, int east, int south, int north, List<ObservableAircraftState> result) {
+        int westColumn = west >> CELL_BITS;
+        int eastColumn = east >> CELL_BITS;
+        int southRow = south >> CELL_BITS;
+        int northRow = north >> CELL_BITS;
+        long columns = Math.floorMod(eastColumn - westColumn, COLUMNS) + 1L;
+        if (west > east && westColumn == eastColumn) columns = COLUMNS;
+        long rectangleCells = columns * (northRow - southRow + 1L);
+
+        if (rectangleCells > cells.size()) {
+            for (List<ObservableAircraftState> cell : cells.values()) collectCell(cell, west, east, south, north, result);
+        } else {
+            for (long c = 0; c < columns; c++) {
+                for (int row = southRow; row <= northRow; row++) {
+                    List<ObservableAircraftState> cell = cells.get(key(westColumn + (int) c, row));
+                    if (cell != null) collectCell(cell, west, east, south, north, result);
+                }
+            }
+        }
+    }
+
+
+    // Cette méthode ajoute à la liste les aéronefs de la cellule donnée contenus dans le rectangle donné
+    private static void collectCell(List<ObservableAircraftState> cell, int west, int east, int south, int north,
+                                    List<ObservableAircraftState> result) {
+        for (ObservableAircraftState aircraftState : cell) {
+            GeoPos position = aircraftState.getPosition();
+            int longitude = position.longitudeT32();
+            int latitude = position.latitudeT32();
+            boolean inLongitude = west <= east
+                    ? west <= longitude && longitude <= east
+                    : west <= longitude || longitude <= east;
+            if (inLongitude && south <= latitude && latitude <= north) result.add(aircraftState);
+        }
+    }
+
+
+    // Cette méthode indexe l'aéronef donné, et observe sa position
+    private void add(ObservableAircraftState aircraftState) {
+        Entry entry = new Entry(o -> relocate(aircraftState));
+        entries.put(aircraftState, entry);
+        aircraftState.positionProperty().addListener(entry.positionListener);
+        relocate(aircraftState);
+    }
+
+
+    // Cette méthode retire l'aéronef donné de l'index, et cesse d'observer sa position
+    private void remove(ObservableAircraftState aircraftState) {
+        Entry entry = entries.remove(aircraftState);
+        aircraftState.positionProperty().removeListener(entry.positionListener);
+        leave(aircraftState, entry.cell);
+    }
+
+
+    // Cette méthode range l'aéronef donné dans la cellule de sa position actuelle
+    private void relocate(ObservableAircraftState aircraftState) {
+        Entry entry = entries.get(aircraftState);
+        GeoPos position = aircraftState.getPosition();
+        long cell = position == null
+                ? NO_CELL
+                : key(position.longitudeT32() >> CELL_BITS, position.latitudeT32() >> CELL_BITS);
+        if (cell == entry.cell) return;
+        leave(aircraftState, entry.cell);
+        if (cell != NO_CELL) cells.computeIfAbsent(cell, c -> new ArrayList<>()).add(aircraftState);
+        entry.cell = cell;
+    }
+
+
+    // Cette méthode retire l'aéronef donné de la cellule donnée, supprimée si elle devient vide
+    private void leave(ObservableAircraftState aircraftState, long cell) {
+        if (cell == NO_CELL) return;
+        List<ObservableAircraftState> members = cells.get(cell);
+        members.remove(aircraftState);
+        if (members.isEmpty()) cells.remove(cell);
+    }
+
+
+    // Cette méthode retourne la clé de la cellule donnée, la colonne étant ramenée dans les limites de la grille
+    private static long key(int column, int row) {
+        int wrappedColumn = Math.floorMod(column + COLUMNS / 2, COLUMNS) - COLUMNS / 2;
+        return ((long) wrappedColumn << Integer.SIZE) | (row & 0xFFFF_FFFFL);
+    }
+
+
+    // Cette méthode retourne la latitude donnée en radians, en unités T32, bornée aux latitudes valides
+    private static int toLatitudeT32(double latitude) {
+        long latitudeT32 = Math.round(Units.convertTo(latitude, Units.Angle.T32));
+        return (int) Math.max(-MAX_LATITUDE_T32, Math.min(MAX_LATITUDE_T32, latitudeT32));
+    }
+}
@@ -0,0 +1,231 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.Preconditions;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe AircraftSpriteAtlas mémorise des images pré-calculées des icônes des aéronefs, afin que le dessin d'un
+ * aéronef se réduise à la copie d'une portion d'image. Chaque icône est rendue une seule fois par cap (arrondi à
+ * un multiple de 360/HEADING_STEPS degrés) et par couleur (arrondie à l'une des COLOR_STEPS couleurs du dégradé
+ * PLASMA), pour l'échelle d'affichage de l'atlas.
+ * <p>
+ * Les images sont rangées dans des cases de taille identique, réparties sur des pages d'au plus PAGE_SIZE pixels
+ * de côté, ce qui limite le nombre de textures utilisées par le dessin. La mémoire occupée par les pages est bornée
+ * par la taille donnée à la construction : une fois toutes les cases utilisées, la case de l'image la moins
+ * récemment dessinée est réutilisée. Une case n'est toutefois jamais réutilisée au cours du dessin qui l'a utilisée,
+ * la page qui la contient n'étant affichée qu'à la fin de celui-ci : si la mémoire ne suffit pas aux images
+ * distinctes d'un même dessin, les icônes en excès sont dessinées directement, sans passer par l'atlas. Les images étant rendues au moyen du graphe de scène, l'atlas ne doit être
+ * utilisé que depuis le fil d'exécution de JavaFX.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class AircraftSpriteAtlas {
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+    public static final int HEADING_STEPS = 72;
+    public static final int COLOR_STEPS = 64;
+    private static final int PAGE_SIZE = 1 << 10;
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final double FULL_TURN = 360;
+    private static final double STROKE_WIDTH = 0.5;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final double scale;
+    private final int cellSize;
+    private final int cellsPerRow;
+    private final int cellsPerPage;
+    private final int maxCells;
+    private final List<WritableImage> pages = new ArrayList<>();
+    private final Map<Integer, Sprite> sprites;
+    private final Map<AircraftIcon, Bounds> iconBounds = new LinkedHashMap<>();
+    private int usedCells;
+    private long frame;
+
+    // une image de l'atlas : sa case, et le dernier dessin l'ayant utilisée
+    private static final class Sprite {
+        private final int cell;
+        private long frame;
+
+        private Sprite(int cell) {
+            this.cell = cell;
+        }
+    }
+
+
+    /**
+     * Le constructeur de la classe AircraftSpriteAtlas
+     *
+     * @param scale    l'échelle d'affichage, c.-à-d. le nombre de pixels de l'écran par unité du canevas
+     * @param maxBytes la mémoire maximale occupée par les pages de l'atlas, en octets
+     * @throws IllegalArgumentException si l'échelle n'est pas strictement positive ou trop grande pour une page,
+     *                                  ou si la mémoire maximale ne suffit pas à une seule image
+     */
+    AircraftSpriteAtlas(double scale, long maxBytes) {
+        Preconditions.checkArgument(scale > 0);
+        this.scale = scale;
+
+        // la case contient l'icône tournée de n'importe quel angle autour du centre de ses limites
+        double radius = 0;
+        for (AircraftIcon icon : AircraftIcon.values()) {
+            Bounds bounds = path(icon).getLayoutBounds();
+            iconBounds.put(icon, bounds);
+            radius = Math.max(radius, Math.hypot(bounds.getWidth(), bounds.getHeight()) / 2);
+        }
+        cellSize = (int) Math.ceil(2 * radius * scale) + 2;
+        cellsPerRow = PAGE_SIZE / cellSize;
+        Preconditions.checkArgument(cellsPerRow > 0);
+        cellsPerPage = cellsPerRow * cellsPerRow;
+        maxCells = (int) Math.min(Integer.MAX_VALUE, maxBytes / ((long) cellSize * cellSize * BYTES_PER_PIXEL));
+        Preconditions.checkArgument(maxCells > 0);
+
+        sprites = new LinkedHashMap<>(Math.min(maxCells, PAGE_SIZE), LOAD_FACTOR, true);
+    }
+
+    /**
+     * @return l'échelle d'affichage de l'atlas
+     */
+    double scale() {
+        return scale;
+    }
+
+    /**
+     * @param icon l'icône
+     * @return les limites de l'icône non tournée, dans le repère de son chemin SVG ; l'icône est tournée autour de
+     * leur centre
+     */
+    Bounds bounds(AircraftIcon icon) {
+        return iconBounds.get(icon);
+    }
+
+    /**
+     * Cette méthode doit être appelée au début de chaque dessin, avant les appels à draw
+     */
+    void beginFrame() {
+        frame += 1;
+    }
+
+    /**
+     * Cette méthode dessine l'icône donnée, centrée au point donné, en la rendant au préalable si elle ne se trouve
+     * pas déjà dans l'atlas
+     *
+     * @param graphicsContext le contexte graphique dans lequel dessiner
+     * @param icon            l'icône
+     * @param heading         le cap de l'aéronef, en degrés, ignoré si l'icône ne peut être tournée
+     * @param colorPosition   la position, entre 0 et 1, de la couleur de l'icône dans le dégradé PLASMA
+     * @param centerX         la coordonnée x du centre de l'icône, dans le repère du contexte graphique
+     * @param centerY         la coordonnée y du centre de l'icône, dans le repère du contexte graphique
+     */
+    void draw(GraphicsContext graphicsContext, AircraftIcon icon, double heading, double colorPosition,
+              double centerX, double centerY) {
+        int headingStep = icon.canRotate()
+                ? Math.floorMod((int) Math.round(heading / FULL_TURN * HEADING_STEPS), HEADING_STEPS)
+                : 0;
+        int colorStep = (int) Math.round(Math.max(0, Math.min(1, colorPosition)) * (COLOR_STEPS - 1));
+        int key = (icon.ordinal() * HEADING_STEPS + headingStep) * COLOR_STEPS + colorStep;
+
+        double quantizedHeading = headingStep * FULL_TURN / HEADING_STEPS;
+        Color color = ColorRamp.PLASMA.at((double) colorStep / (COLOR_STEPS - 1));
+
+        Sprite sprite = sprites.get(key);
+        if (sprite == null) {
+            int cell = allocateCell();
+            if (cell < 0) {
+                drawDirectly(graphicsContext, icon, quantizedHeading, color, centerX, centerY);
+                return;
+            }
+            sprite = new Sprite(cell);
+            render(cell, icon, quantizedHeading, color);
+            sprites.put(key, sprite);
+        }
+        sprite.frame = frame;
+
+        int cellInPage = sprite.cell % cellsPerPage;
+        double size = cellSize / scale;
+        graphicsContext.drawImage(pages.get(sprite.cell / cellsPerPage),
+                (cellInPage % cellsPerRow) * cellSize, (cellInPage / cellsPerRow) * cellSize, cellSize, cellSize,
+                centerX - size / 2, centerY - size / 2, size, size);
+    }
+
+    // Cette méthode retourne une case libre, en réutilisant celle de l'image la moins récemment dessinée si la
+    // mémoire maximale est atteinte, ou -1 si toutes les cases ont été utilisées par le dessin en cours
+    private int allocateCell() {
+        if (usedCells == maxCells) {
+            Map.Entry<Integer, Sprite> eldest = sprites.entrySet().iterator().next();
+            if (eldest.getValue().frame == frame) return -1;
+            sprites.remove(eldest.getKey());
+            return eldest.getValue().cell;
+        }
+        int cell = usedCells++;
+        if (cell / cellsPerPage == pages.size()) {
+            // la dernière page n'a que le nombre de lignes permis par la mémoire restante
+            int rows = Math.min(cellsPerRow, (maxCells - cell + cellsPerRow - 1) / cellsPerRow);
+            pages.add(new WritableImage(cellsPerRow * cellSize, rows * cellSize));
+        }
+        return cell;
+    }
+
+    // Cette méthode rend l'icône donnée, tournée et colorée, dans la case donnée
+    private void render(int cell, AircraftIcon icon, double heading, Color color) {
+        Bounds bounds = iconBounds.get(icon);
+        SVGPath path = path(icon);
+        path.setFill(color);
+        path.getTransforms().addAll(
+                new Translate(cellSize / 2d, cellSize / 2d),
+                new Scale(scale, scale),
+                new Rotate(heading),
+                new Translate(-bounds.getCenterX(), -bounds.getCenterY()));
+        // le cadre transparent fixe les limites du rendu à celles de la case, l'icône étant centrée dans celui-ci
+        Rectangle frame = new Rectangle(cellSize, cellSize, Color.TRANSPARENT);
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        WritableImage image = new Group(frame, path).snapshot(parameters, new WritableImage(cellSize, cellSize));
+
+        int cellInPage = cell % cellsPerPage;
+        pages.get(cell / cellsPerPage).getPixelWriter().setPixels(
+                (cellInPage % cellsPerRow) * cellSize, (cellInPage / cellsPerRow) * cellSize, cellSize, cellSize,
+                image.getPixelReader(), 0, 0);
+    }
+
+    // Cette méthode dessine l'icône donnée directement dans le contexte graphique
+    private void drawDirectly(GraphicsContext graphicsContext, AircraftIcon icon, double heading, Color color,
+                              double centerX, double centerY) {
+        Bounds bounds = iconBounds.get(icon);
+        graphicsContext.save();
+        graphicsContext.translate(centerX, centerY);
+        graphicsContext.rotate(heading);
+        graphicsContext.translate(-bounds.getCenterX(), -bounds.getCenterY());
+        graphicsContext.beginPath();
+        graphicsContext.appendSVGPath(icon.svgPath());
+        graphicsContext.setFill(color);
+        graphicsContext.fill();
+        graphicsContext.setStroke(Color.BLACK);
+        graphicsContext.setLineWidth(STROKE_WIDTH);
+        graphicsContext.stroke();
+        graphicsContext.restore();
+    }
+
+    // Cette méthode retourne le chemin SVG, non transformé, de l'icône donnée
+    private static SVGPath path(AircraftIcon icon) {
+        SVGPath path = new SVGPath();
+        path.setContent(icon.svgPath());
+        path.setStroke(Color.BLACK);
+        path.setStrokeWidth(STROKE_WIDTH);
+        return path;
+    }
+}
@@ -3,12 +3,17 @@ package ch.epfl.javions.gui;
 import ch.epfl.javions.adsb.AircraftStateAccumulator;
 import ch.epfl.javions.adsb.Message;
 import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.AircraftMetadataService;
 import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.engine.AircraftSnapshot;
+import ch.epfl.javions.engine.AircraftUpdates;
+import javafx.application.Platform;
 import javafx.collections.ObservableSet;
 
-import java.io.IOException;
-import java.util.HashMap;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static javafx.collections.FXCollections.*;
@@ -23,10 +28,17 @@ import static javafx.collections.FXCollections.*;
  */
 public final class AircraftStateManager {
     public static final double TIME = 6 * Math.pow(10, 10);
-    private final Map<IcaoAddress, AircraftStateAccumulator<ObservableAircraftState>> association = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final Logger LOGGER = System.getLogger(AircraftStateManager.class.getName());
+    // les aéronefs sont rangés par ordre d'accès, donc par horodatage croissant de leur dernier message, les
+    // messages arrivant dans l'ordre chronologique : les premiers de la table sont les prochains à expirer
+    private final Map<IcaoAddress, AircraftStateAccumulator<ObservableAircraftState>> association =
+            new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
     private final ObservableSet<ObservableAircraftState> set;
-    private final AircraftDatabase dataBase;
+    private final AircraftMetadataService metadata;
     private final ObservableSet<ObservableAircraftState> states;
+    private final AircraftSpatialIndex spatialIndex;
     private long currentTime;
 
 
@@ -36,9 +48,21 @@ public final class AircraftStateManager {
      * @param data les données de l'aéronef
      */
     public AircraftStateManager(AircraftDatabase data) {
-        this.dataBase = data;
+        this(new AircraftMetadataService(data));
+    }
+
+
+    /**
+     * Ce constructeur public de la classe AircraftStateManager, dont les recherches dans la base de données sont
+     * effectuées par le service donné, sans bloquer le fil de JavaFX
+     *
+     * @param metadata le service de recherche des données des aéronefs
+     */
+    public AircraftStateManager(AircraftMetadataService metadata) {
+        this.metadata = metadata;
         set = observableSet();
         states = unmodifiableObservableSet(set);
+        spatialIndex = new AircraftSpatialIndex(states);
     }
 
 
@@ -53,36 +77,82 @@ public final class AircraftStateManager {
 
 
     /**
-     * Cette méthode public utilise le message recu l'utilisant pour mettre à jour l'état de l'aéronef qui l'a envoyé
+     * Cette méthode public retourne l'index spatial des états observables des aéronefs, tenu à jour au fil des
+     * modifications de ceux-ci
+     *
+     * @return l'index spatial des positions des aéronefs de states()
+     */
+    public AircraftSpatialIndex spatialIndex() {
+        return spatialIndex;
+    }
+
+
+    /**
+     * Cette méthode public utilise le message recu l'utilisant pour mettre à jour l'état de l'aéronef qui l'a envoyé.
+     * Les données d'un nouvel aéronef sont recherchées de manière asynchrone, et lui sont attachées sur le fil de
+     * JavaFX dès qu'elles sont disponibles ; l'échec de cette recherche est journalisé.
      *
      * @param message un message
      */
-    public void updateWithMessage(Message message) throws IOException {
+    public void updateWithMessage(Message message) {
         currentTime = message.timeStampNs();
         IcaoAddress key = message.icaoAddress();
-        if (association.containsKey(key)) {
-            association.get(key).update(message);
-            if (association.get(key).stateSetter().getPosition() != null) {
-                set.add(association.get(key).stateSetter());
-            }
-        } else {
-            association.put(key, new AircraftStateAccumulator<>(new ObservableAircraftState(key, dataBase.get(key))));
+        AircraftStateAccumulator<ObservableAircraftState> accumulator = association.get(key);
+        if (accumulator == null) {
+            ObservableAircraftState state = new ObservableAircraftState(key, null);
+            accumulator = new AircraftStateAccumulator<>(state);
+            association.put(key, accumulator);
+            metadata.lookup(key).whenCompleteAsync((data, failure) -> {
+                if (failure != null) {
+                    LOGGER.log(Level.WARNING, "Recherche des données de l'aéronef " + key.string() + " échouée",
+                            failure);
+                } else {
+                    state.setData(data);
+                }
+            }, Platform::runLater);
+        }
+        accumulator.update(message);
+        if (accumulator.stateSetter().getPosition() != null) {
+            set.add(accumulator.stateSetter());
+        }
+    }
+
+
+    /**
+     * Cette méthode public met à jour les états à partir des modifications publiées par le moteur d'ingestion :
+     * chaque aéronef modifié n'est mis à jour qu'une fois, et les aéronefs oubliés par le moteur sont supprimés.
+     * Dans ce mode, les états sont tenus à jour et purgés par le moteur, et la base de données n'est pas consultée.
+     *
+     * @param updates les modifications publiées par le moteur
+     */
+    public void updateWithSnapshots(AircraftUpdates updates) {
+        for (IcaoAddress key : updates.removed()) {
+            AircraftStateAccumulator<ObservableAircraftState> accumulator = association.remove(key);
+            if (accumulator != null) set.remove(accumulator.stateSetter());
+        }
+        for (AircraftSnapshot snapshot : updates.updated()) {
+            ObservableAircraftState state = association.computeIfAbsent(snapshot.icaoAddress(),
+                    key -> new AircraftStateAccumulator<>(new ObservableAircraftState(key, snapshot.data())))
+                    .stateSetter();
+            state.apply(snapshot);
+            set.add(state);
         }
     }
 
 
     /**
      * Cette méthode public supprime de l'ensemble des états observables tous ceux correspondant à des aéronefs dont
-     * aucun message n'a été reçu dans la minute précédant la réception du dernier message passé à updateWithMessage
+     * aucun message n'a été reçu dans la minute précédant la réception du dernier message passé à updateWithMessage.
+     * Les aéronefs étant rangés par horodatage croissant, seuls ceux qui expirent sont parcourus, plus le premier
+     * qui n'expire pas.
      */
     public void purge() {
         Iterator<AircraftStateAccumulator<ObservableAircraftState>> iterator = (association.values()).iterator();
         while (iterator.hasNext()) {
             AircraftStateAccumulator<ObservableAircraftState> state = iterator.next();
-            if (currentTime - (state.stateSetter()).getLastMessageTimeStampNs() > TIME) {
-                iterator.remove();
-                set.remove(state.stateSetter());
-            }
+            if (currentTime - (state.stateSetter()).getLastMessageTimeStampNs() <= TIME) break;
+            iterator.remove();
+            set.remove(state.stateSetter());
         }
     }
 }
@@ -2,19 +2,28 @@ package ch.epfl.javions.gui;
 
 import ch.epfl.javions.adsb.CallSign;
 import ch.epfl.javions.aircraft.AircraftData;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.ObservableSet;
 import javafx.collections.SetChangeListener;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 
 import java.text.NumberFormat;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.function.Consumer;
 
 
 /**
  * La classe public et finale AircraftTableController gère la table de vue des aéronefs.
+ * Les colonnes numériques contiennent les valeurs elles-mêmes, formatées uniquement pour l'affichage, et sont donc
+ * triées sans analyser de chaînes. Les ajouts et suppressions d'aéronefs sont regroupés et appliqués une fois par
+ * battement, et la table est triée à nouveau au plus une fois par SORT_PERIOD_NS nanosecondes, ses valeurs
+ * changeant continuellement.
  *
  * @author Marwa Chiguer (325221)
  * @author Imane Oujja (344332)
@@ -38,9 +47,16 @@ public final class AircraftTableController {
     public static final String LATITUDE = "Latitude (°)";
     public static final String ALTITUDE_M = "Altitude (m)";
     public static final String VELOCITY = "Vitesse (km/h)";
+    public static final long SORT_PERIOD_NS = 1_000_000_000L;
+    private static final Comparator<Number> NUMERIC_ORDER =
+            Comparator.nullsFirst(Comparator.comparingDouble(Number::doubleValue));
     private final TableView<ObservableAircraftState> tableView;
     private final ObjectProperty<ObservableAircraftState> selectedAircraft;
     private final ObservableSet<ObservableAircraftState> aircraftStates;
+    private final Set<ObservableAircraftState> added = new LinkedHashSet<>();
+    private final Set<ObservableAircraftState> removed = new LinkedHashSet<>();
+    private final Runnable pulseListener = this::updateItems;
+    private long lastSortNs;
 
 
     /**
@@ -100,10 +116,10 @@ public final class AircraftTableController {
         TableColumn<ObservableAircraftState, String> modeleColumn = new TableColumn<>(MODÈLE);
         TableColumn<ObservableAircraftState, String> typeColumn = new TableColumn<>(TYPE);
         TableColumn<ObservableAircraftState, String> descriptionColumn = new TableColumn<>(DESCRIPTION);
-        TableColumn<ObservableAircraftState, String> longitudeColumn = new TableColumn<>(LONGITUDE);
-        TableColumn<ObservableAircraftState, String> latitudeColumn = new TableColumn<>(LATITUDE);
-        TableColumn<ObservableAircraftState, String> altitudeColumn = new TableColumn<>(ALTITUDE_M);
-        TableColumn<ObservableAircraftState, String> velocityColumn = new TableColumn<>(VELOCITY);
+        TableColumn<ObservableAircraftState, Number> longitudeColumn = new TableColumn<>(LONGITUDE);
+        TableColumn<ObservableAircraftState, Number> latitudeColumn = new TableColumn<>(LATITUDE);
+        TableColumn<ObservableAircraftState, Number> altitudeColumn = new TableColumn<>(ALTITUDE_M);
+        TableColumn<ObservableAircraftState, Number> velocityColumn = new TableColumn<>(VELOCITY);
 
 
         tableView.getColumns().setAll(oaciColumn, indicatifColumn, immatriculationColumn, modeleColumn,
@@ -125,14 +141,14 @@ public final class AircraftTableController {
         indicatifColumn.setCellValueFactory(f ->
                 f.getValue().callSignProperty().map(CallSign::string));
         immatriculationColumn.setCellValueFactory(f ->
-                new ReadOnlyObjectWrapper<>((f.getValue().getData())).map(a ->
+                f.getValue().dataProperty().map(a ->
                 a.registration().string()));
         modeleColumn.setCellValueFactory(f ->
-                new ReadOnlyObjectWrapper<>((f.getValue().getData())).map(AircraftData::model));
+                f.getValue().dataProperty().map(AircraftData::model));
         typeColumn.setCellValueFactory(f ->
-                new ReadOnlyObjectWrapper<>((f.getValue().getData())).map(a -> a.typeDesignator().string()));
+                f.getValue().dataProperty().map(a -> a.typeDesignator().string()));
         descriptionColumn.setCellValueFactory(f ->
-                new ReadOnlyObjectWrapper<>((f.getValue().getData())).map(a -> a.description().string()));
+                f.getValue().dataProperty().map(a -> a.description().string()));
 
 
         // Configuration des formats numériques
@@ -144,22 +160,34 @@ public final class AircraftTableController {
         numberFormat2.setMaximumFractionDigits(MINIMUM_FRACTION_DIGITS2);
 
 
-        // Configure les valeurs des cellules pour les colonnes numériques
-        longitudeColumn.setCellValueFactory(f -> f.getValue().positionProperty().map(p ->
-                numberFormat2.format(p.longitude())));
-        latitudeColumn.setCellValueFactory(f -> f.getValue().positionProperty().map(p ->
-                numberFormat2.format(p.latitude())));
-        altitudeColumn.setCellValueFactory(f -> f.getValue().altitudeProperty().map(p ->
-                p != null ? numberFormat.format(p.doubleValue()) : ""));
-        velocityColumn.setCellValueFactory(f -> f.getValue().velocityProperty().map(p ->
-                p != null ? numberFormat.format(p.doubleValue()) : ""));
+        // Configure les valeurs des cellules pour les colonnes numériques, formatées uniquement à l'affichage
+        longitudeColumn.setCellValueFactory(f -> f.getValue().positionProperty().map(p -> p.longitude()));
+        latitudeColumn.setCellValueFactory(f -> f.getValue().positionProperty().map(p -> p.latitude()));
+        altitudeColumn.setCellValueFactory(f -> f.getValue().altitudeProperty());
+        velocityColumn.setCellValueFactory(f -> f.getValue().velocityProperty());
+        longitudeColumn.setCellFactory(c -> numericCell(numberFormat2));
+        latitudeColumn.setCellFactory(c -> numericCell(numberFormat2));
+        altitudeColumn.setCellFactory(c -> numericCell(numberFormat));
+        velocityColumn.setCellFactory(c -> numericCell(numberFormat));
 
 
-        //Définit les comparateurs
-        latitudeColumn.setComparator((s1, s2) -> compareNumericValues(s1, s2, numberFormat2));
-        longitudeColumn.setComparator((s1, s2) -> compareNumericValues(s1, s2, numberFormat2));
-        altitudeColumn.setComparator((s1, s2) -> compareNumericValues(s1, s2, numberFormat));
-        velocityColumn.setComparator((s1, s2) -> compareNumericValues(s1, s2, numberFormat));
+        //Définit les comparateurs, qui comparent directement les valeurs
+        latitudeColumn.setComparator(NUMERIC_ORDER);
+        longitudeColumn.setComparator(NUMERIC_ORDER);
+        altitudeColumn.setComparator(NUMERIC_ORDER);
+        velocityColumn.setComparator(NUMERIC_ORDER);
+    }
+
+
+    //Cette méthode privée retourne une cellule affichant sa valeur numérique au format donné
+    private static TableCell<ObservableAircraftState, Number> numericCell(NumberFormat numberFormat) {
+        return new TableCell<>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? "" : numberFormat.format(item.doubleValue()));
+            }
+        };
     }
 
 
@@ -172,14 +200,19 @@ public final class AircraftTableController {
                 tableView.scrollTo(newValue);
             }
         });
+        // les ajouts et suppressions sont appliqués au prochain battement
         aircraftStates.addListener((SetChangeListener<ObservableAircraftState>) change -> {
-            if (change.wasRemoved()) {
-                tableView.getItems().remove(change.getElementRemoved());
-            } else if (change.wasAdded()) {
-                tableView.getItems().add(change.getElementAdded());
-                // Trie les éléments dans le tableView
-                tableView.sort();
+            if (change.wasRemoved() && !added.remove(change.getElementRemoved())) {
+                removed.add(change.getElementRemoved());
+            }
+            if (change.wasAdded() && !removed.remove(change.getElementAdded())) {
+                added.add(change.getElementAdded());
             }
+            Platform.requestNextPulse();
+        });
+        tableView.sceneProperty().addListener((p, oldS, newS) -> {
+            if (oldS != null) oldS.removePreLayoutPulseListener(pulseListener);
+            if (newS != null) newS.addPreLayoutPulseListener(pulseListener);
         });
 
         // Met à jour la valeur sélectionnée dans selectedAircraft
@@ -189,20 +222,23 @@ public final class AircraftTableController {
     }
 
 
-    //Cette méthode privée compare deux valeurs numériques représentées sous forme de chaînes de caractères
-    private int compareNumericValues(String s1, String s2, NumberFormat numberFormat) {
-        // Comparaison lexicographique par défaut si l'une des chaînes est vide
-        if (s1.isEmpty() || s2.isEmpty()) {
-            return s1.compareTo(s2);
-        } else {
-            try {
-                // Convertir les chaines en nombre en utilisant le format numberFormat
-                Number n1 = numberFormat.parse(s1);
-                Number n2 = numberFormat.parse(s2);
-                return Double.compare(n1.doubleValue(), n2.doubleValue());
-            } catch (Exception e) {
-                return 0;
-            }
+    //Cette méthode privée applique les ajouts et suppressions en attente, puis trie la table si la période de tri
+    // est écoulée
+    private void updateItems() {
+        if (!removed.isEmpty()) {
+            tableView.getItems().removeAll(removed);
+            removed.clear();
+        }
+        if (!added.isEmpty()) {
+            tableView.getItems().addAll(added);
+            added.clear();
+        }
+
+        long now = System.nanoTime();
+        if (!tableView.getSortOrder().isEmpty() && now - lastSortNs >= SORT_PERIOD_NS) {
+            // Trie les éléments dans le tableView
+            tableView.sort();
+            lastSortNs = now;
         }
     }
 
@@ -9,8 +9,10 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
 
-import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 
 /**
@@ -22,13 +24,22 @@ import java.io.IOException;
 public final class BaseMapController {
 
     public static final int PIXELS = 256;
+    private static final int PLACEHOLDER_LEVELS = 4;
+    private static final Color PLACEHOLDER_COLOR = Color.gray(0.9);
+    // tuiles en mémoire par tuile visible : les visibles, leur anneau, et celles des niveaux de zoom voisins
+    private static final int CACHED_TILES_PER_VISIBLE_TILE = 4;
     private final TileManager tileManager;
+    private final TilePrefetcher prefetcher;
     private final MapParameters mapParameters;
     private final Pane pane;
     private final Canvas canvas;
     private boolean redrawNeeded;
+    private boolean prefetchInterrupted;
+    private double pointerX = Double.NaN, pointerY = Double.NaN;
     private double lastMouseX, lastMouseY;
     private boolean isDragging;
+    // les tuiles dont l'arrivée provoquera un nouveau dessin
+    private final Set<TileManager.TileId> awaitedTiles = new HashSet<>();
 
 
     /**
@@ -40,6 +51,8 @@ public final class BaseMapController {
     public BaseMapController(TileManager tileManager, MapParameters parameters) {
         this.mapParameters = parameters;
         this.tileManager = tileManager;
+        this.prefetcher = new TilePrefetcher(tileManager, parameters);
+        tileManager.setOnPrefetchFinished(() -> Platform.runLater(this::resumePrefetch));
         canvas = new Canvas();
         pane = new Pane(canvas);
         redrawNeeded = true;
@@ -90,6 +103,10 @@ public final class BaseMapController {
 
         canvas.widthProperty().addListener((observable, oldValue, newValue) -> redrawOnNextPulse());
         canvas.heightProperty().addListener((observable, oldValue, newValue) -> redrawOnNextPulse());
+        // la portion visible peut aussi être modifiée hors de ce contrôleur (centerOn, clic sur un groupe d'aéronefs)
+        mapParameters.zoomProperty().addListener((observable, oldValue, newValue) -> redrawOnNextPulse());
+        mapParameters.minX().addListener((observable, oldValue, newValue) -> redrawOnNextPulse());
+        mapParameters.minY().addListener((observable, oldValue, newValue) -> redrawOnNextPulse());
     }
 
 
@@ -104,6 +121,7 @@ public final class BaseMapController {
             long currentTime = System.currentTimeMillis();
             if (currentTime < minScrollTime.get()) return;
             minScrollTime.set(currentTime + 200);
+            trackPointer(e.getX(), e.getY());
             mapParameters.scroll(-e.getX(), -e.getY());
             mapParameters.changeZoomLevel(zoomDelta);
             mapParameters.scroll(e.getX(), e.getY());
@@ -111,8 +129,12 @@ public final class BaseMapController {
             e.consume();
         });
 
+        //position du pointeur, autour de laquelle la carte est zoomée
+        canvas.setOnMouseMoved(e -> trackPointer(e.getX(), e.getY()));
+
         //glissement de la carte
         canvas.setOnMousePressed(e -> {
+            trackPointer(e.getX(), e.getY());
             lastMouseX = e.getX();
             lastMouseY = e.getY();
             isDragging = true;
@@ -156,17 +178,81 @@ public final class BaseMapController {
             for (int y = startY; y < endY; y++) {
                 if (TileManager.TileId.isValid(mapParameters.getZoom(), x, y)) {
                     TileManager.TileId tileId = new TileManager.TileId(mapParameters.getZoom(), x, y);
-                    try {
-                        // Obtient l'image de tuile correspondante
-                        Image tileImage = tileManager.imageForTileAt(tileId);
-                        double drawX = x * PIXELS - mapParameters.getMinX();
-                        double drawY = (y * PIXELS - mapParameters.getMinY());
+                    double drawX = x * PIXELS - mapParameters.getMinX();
+                    double drawY = (y * PIXELS - mapParameters.getMinY());
+                    // Obtient l'image de tuile correspondante si elle est en mémoire, sinon la demande
+                    Image tileImage = tileManager.cachedImageForTileAt(tileId);
+                    if (tileImage != null) {
                         graphicsContext.drawImage(tileImage, drawX, drawY);
-                    } catch (IOException ignored) {
+                    } else {
+                        drawPlaceholder(graphicsContext, tileId, drawX, drawY);
+                        requestTile(tileId);
                     }
                 }
             }
         }
+
+        // Précharge les tuiles qui seront vraisemblablement affichées prochainement, le cache mémoire pouvant toutes
+        // les contenir
+        int visibleTiles = ((int) Math.ceil(canvas.getWidth() / PIXELS) + 1)
+                * ((int) Math.ceil(canvas.getHeight() / PIXELS) + 1);
+        tileManager.setMemoryCacheCapacity(CACHED_TILES_PER_VISIBLE_TILE * visibleTiles);
+        prefetchInterrupted = prefetch();
+    }
+
+
+    // Cette méthode précharge les tuiles voisines de la portion visible, les changements de zoom étant supposés
+    // se faire autour de la dernière position du pointeur, ou à défaut du centre de la carte
+    private boolean prefetch() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        return Double.isNaN(pointerX)
+                ? prefetcher.prefetch(width, height, width / 2, height / 2)
+                : prefetcher.prefetch(width, height, pointerX, pointerY);
+    }
+
+
+    // Cette méthode mémorise la dernière position du pointeur sur la carte
+    private void trackPointer(double x, double y) {
+        pointerX = x;
+        pointerY = y;
+    }
+
+
+    // Cette méthode reprend le préchargement s'il a été interrompu par la limite du nombre de préchargements
+    // simultanés, l'un d'eux venant de se terminer
+    private void resumePrefetch() {
+        if (prefetchInterrupted) prefetchInterrupted = prefetch();
+    }
+
+
+    // Cette méthode dessine à la place de la tuile donnée, en attendant son arrivée, la portion correspondante de
+    // l'une de ses ancêtres présente en mémoire, agrandie, ou à défaut une couleur unie
+    private void drawPlaceholder(GraphicsContext graphicsContext, TileManager.TileId tileId,
+                                 double drawX, double drawY) {
+        for (int level = 1; level <= Math.min(PLACEHOLDER_LEVELS, tileId.zoom()); level++) {
+            Image ancestor = tileManager.cachedImageForTileAt(
+                    new TileManager.TileId(tileId.zoom() - level, tileId.x() >> level, tileId.y() >> level));
+            if (ancestor != null) {
+                double size = (double) PIXELS / (1 << level);
+                int mask = (1 << level) - 1;
+                graphicsContext.drawImage(ancestor, (tileId.x() & mask) * size, (tileId.y() & mask) * size,
+                        size, size, drawX, drawY, PIXELS, PIXELS);
+                return;
+            }
+        }
+        graphicsContext.setFill(PLACEHOLDER_COLOR);
+        graphicsContext.fillRect(drawX, drawY, PIXELS, PIXELS);
+    }
+
+
+    // Cette méthode demande la tuile donnée, la carte étant redessinée à son arrivée si elle est encore visible
+    private void requestTile(TileManager.TileId tileId) {
+        if (!awaitedTiles.add(tileId)) return;
+        tileManager.loadImageForTileAt(tileId).whenCompleteAsync((image, error) -> {
+            awaitedTiles.remove(tileId);
+            if (image != null && tileId.zoom() == mapParameters.getZoom()) redrawOnNextPulse();
+        }, Platform::runLater);
     }
 
     // Marque le besoin de redessiner et demande le prochain pulse à la plateforme
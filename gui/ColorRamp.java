@@ -3,19 +3,17 @@ package ch.epfl.javions.gui;
 import ch.epfl.javions.Preconditions;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * La classe ColorRamp du sous-paquetage gui, publique, finale et immuable, représente un dégradé de couleurs.
+ * Le dégradé est échantillonné une fois pour toutes dans une table de couleurs, de DEFAULT_TABLE_SIZE entrées par
+ * défaut, de sorte que la méthode at n'effectue aucune allocation.
  *
  * @author Marwa Chiguer (325221)
  * @author Imane Oujja (344332)
  */
 public final class ColorRamp {
-    public static final int LIMIT_COLOR = 31;
-    public static final int FULL_PERCENTAGE = 100;
-    private final List<Color> colors;
+    public static final int DEFAULT_TABLE_SIZE = 1 << 10;
+    private final Color[] table;
     public static final ColorRamp PLASMA = new ColorRamp(
             Color.valueOf("0x0d0887ff"), Color.valueOf("0x220690ff"),
             Color.valueOf("0x320597ff"), Color.valueOf("0x40049dff"),
@@ -42,25 +40,56 @@ public final class ColorRamp {
      * @throws IllegalArgumentException si elle ne contient pas au moins deux couleurs.
      */
     public ColorRamp(Color... colors) {
-        Preconditions.checkArgument(!(colors.length < 2));
-        this.colors = List.of(colors);
+        this(DEFAULT_TABLE_SIZE, colors);
+    }
+
+
+    /**
+     * Le constructeur de ColorRamp prend en argument la taille de la table des couleurs et une séquence de couleurs
+     * JavaFX de type Color, également réparties sur l'intervalle [0, 1]
+     *
+     * @param tableSize le nombre de couleurs échantillonnées dans le dégradé.
+     * @param colors    une séquence de couleurs JavaFx.
+     * @throws IllegalArgumentException si elle ne contient pas au moins deux couleurs, ou si la taille de la table
+     *                                  est inférieure à 2.
+     */
+    public ColorRamp(int tableSize, Color... colors) {
+        Preconditions.checkArgument(!(colors.length < 2) && tableSize >= 2);
+        table = new Color[tableSize];
+        for (int i = 0; i < tableSize; i++) {
+            double position = (double) i / (tableSize - 1) * (colors.length - 1);
+            int index = Math.min(colors.length - 2, (int) position);
+            table[i] = colors[index].interpolate(colors[index + 1], position - index);
+        }
     }
 
 
     /**
      * méthode publique at, prend un argument de type double et retourne la couleur correspondante.
      *
-     * @param c un double.
-     * @return la couleur correspondante à ce double.
+     * @param c un double, ramené à l'intervalle [0, 1] s'il n'y appartient pas.
+     * @return la couleur correspondante à ce double, arrondie à l'entrée la plus proche de la table.
      */
     public Color at(double c) {
-        List<Double> grades = new ArrayList<>(colors.size());
-        for (int i = 0; i < colors.size(); i++) {
-            grades.add(i / (double) (colors.size() - 1));
-        }
-        int index = (int) Math.floor(c / (1d / (colors.size() - 1)));
-        double percentage = (grades.get(Math.min(LIMIT_COLOR, index + 1)) - c) * FULL_PERCENTAGE;
-        Color color = colors.get(Math.min(LIMIT_COLOR, index + 1));
-        return colors.get(index).interpolate(color, percentage);
+        return table[indexOf(c)];
+    }
+
+
+    /**
+     * Cette méthode retourne l'index, dans la table des couleurs, de la couleur correspondant au double donné
+     *
+     * @param c un double, ramené à l'intervalle [0, 1] s'il n'y appartient pas.
+     * @return l'index de l'entrée de la table la plus proche, entre 0 et tableSize() - 1.
+     */
+    public int indexOf(double c) {
+        return (int) Math.round(Math.max(0, Math.min(1, c)) * (table.length - 1));
+    }
+
+
+    /**
+     * @return le nombre de couleurs de la table.
+     */
+    public int tableSize() {
+        return table.length;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,11 @@
 package ch.epfl.javions.gui;
 
-import ch.epfl.javions.ByteString;
 import ch.epfl.javions.adsb.Message;
-import ch.epfl.javions.adsb.MessageParser;
-import ch.epfl.javions.adsb.RawMessage;
 import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.AircraftMetadataService;
+import ch.epfl.javions.engine.IngestionEngine;
 import ch.epfl.javions.demodulation.AdsbDemodulator;
+import ch.epfl.javions.engine.MessageSource;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
@@ -19,22 +19,31 @@ import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.control.SplitPane;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-import java.io.*;
+import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-import static java.util.Collections.unmodifiableList;
 import static javafx.beans.binding.Bindings.createObjectBinding;
 
 
 /**
  * La classe publique et finale contient le programme principal, elle représente une application JavaFX.
+ * Le paramètre facultatif --snapshot-rate=n fixe la fréquence, en hertz, à laquelle les états des aéronefs sont
+ * publiés à l'interface (10 par défaut) ; une fréquence nulle les met à jour à chaque message reçu.
+ * Le paramètre facultatif --renderer=nodes affiche les aéronefs au moyen de nœuds du graphe de scène
+ * (AircraftController) plutôt que sur un unique canevas (AircraftCanvasController), ce qui est le cas par défaut ;
+ * dans ce dernier cas, le paramètre facultatif --sprite-cache=n borne à n Mo la mémoire de l'atlas des icônes, et
+ * le paramètre facultatif --cluster-zoom=n fixe le niveau de zoom maximal auquel les aéronefs sont regroupés
+ * (8 par défaut, -1 pour ne jamais les regrouper).
+ * Le paramètre facultatif --tile-server=uri remplace le serveur de tuiles OSM, par exemple par un serveur local.
+ * L'option --correct-errors active la correction des erreurs d'un seul bit lors de la démodulation, le nombre de
+ * messages corrigés étant alors affiché dans la ligne d'état.
  *
  * @author Marwa Chiguer (325221)
  * @author Imane Oujja (344332)
@@ -48,13 +57,23 @@ public final class Main extends Application {
     public static final String PATH = "tile-cache";
     public static final String TILE_SERVER = "tile.openstreetmap.org";
     public static final String RESOURCE = "/aircraft.zip";
+    public static final String COMPILED_RESOURCE = "/aircraft.bin";
     public static final int ZOOM = 8;
     public static final int MIN_X = 33_530;
     public static final int MIN_Y = 23_070;
     public static final int SECOND = 1_000_000_000;
-    private final ConcurrentLinkedQueue<RawMessage> messageQueue = new ConcurrentLinkedQueue<>();
+    public static final int MILLISECOND = 1_000_000;
+    public static final int MEGABYTE = 1 << 20;
+    public static final String SNAPSHOT_RATE = "snapshot-rate";
+    public static final String DEFAULT_SNAPSHOT_RATE = "10";
+    public static final String RENDERER = "renderer";
+    public static final String NODES_RENDERER = "nodes";
+    public static final String SPRITE_CACHE = "sprite-cache";
+    public static final String TILE_SERVER_URI = "tile-server";
+    public static final String CLUSTER_ZOOM = "cluster-zoom";
+    public static final String CORRECT_ERRORS = "--correct-errors";
+    private final ConcurrentLinkedQueue<Message> messageQueue = new ConcurrentLinkedQueue<>();
     private final StatusLineController lineController = new StatusLineController();
-    private long counter = 0;
     private long purge;
 
 
@@ -78,7 +97,10 @@ public final class Main extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
         Path tileCache = Path.of(PATH);
-        TileManager tileManager = new TileManager(tileCache, TILE_SERVER);
+        String tileServerUri = getParameters().getNamed().get(TILE_SERVER_URI);
+        TileManager tileManager = tileServerUri == null
+                ? new TileManager(tileCache, TILE_SERVER)
+                : new TileManager(tileCache, URI.create(tileServerUri), TileManager.DEFAULT_THREADS);
         MapParameters map = new MapParameters(ZOOM, MIN_X, MIN_Y);
         BaseMapController baseMapController = new BaseMapController(tileManager, map);
 
@@ -86,19 +108,34 @@ public final class Main extends Application {
         IntegerProperty aircraftCountProperty = new SimpleIntegerProperty();
         aircraftCountLabel.textProperty().bind(Bindings.convert(aircraftCountProperty));
 
-        //Obtention de la base de données
-        URL u = getClass().getResource(RESOURCE);
-        assert u != null;
-        Path p = Path.of(u.toURI());
-        AircraftDatabase database = new AircraftDatabase(p.toString());
+        //Obtention de la base de données : projection de sa version compilée si elle existe, sinon index en mémoire
+        URL compiled = getClass().getResource(COMPILED_RESOURCE);
+        AircraftDatabase database;
+        if (compiled != null) {
+            database = AircraftDatabase.openMapped(Path.of(compiled.toURI()).toString());
+        } else {
+            URL u = getClass().getResource(RESOURCE);
+            assert u != null;
+            Path p = Path.of(u.toURI());
+            database = AircraftDatabase.loadIndexed(p.toString());
+        }
+        System.out.printf("Base de données : %d aéronefs indexés en %d ms, %.1f Mo en mémoire%n",
+                database.indexedCount(), database.loadTimeNs() / MILLISECOND,
+                (double) database.indexSizeBytes() / MEGABYTE);
 
-        AircraftStateManager aircraftStateManager = new AircraftStateManager(database);
+        AircraftMetadataService metadata = new AircraftMetadataService(database);
+        AircraftStateManager aircraftStateManager = new AircraftStateManager(metadata);
         ObjectProperty<ObservableAircraftState> property = new SimpleObjectProperty<>();
-        AircraftController aircraftController = new AircraftController(map, aircraftStateManager.states(), property);
+        Pane aircraftPane = NODES_RENDERER.equals(getParameters().getNamed().get(RENDERER))
+                ? new AircraftController(map, aircraftStateManager.states(), property).pane()
+                : new AircraftCanvasController(map, aircraftStateManager.states(), property,
+                spriteCacheBytes(getParameters().getNamed().get(SPRITE_CACHE)),
+                clusterMaxZoom(getParameters().getNamed().get(CLUSTER_ZOOM)),
+                aircraftStateManager.spatialIndex()).pane();
         AircraftTableController aircraftTable = new AircraftTableController(aircraftStateManager.states(), property);
 
         // panneau superposant la vue des aéronefs au fond de carte.
-        StackPane mapAndPlanes = new StackPane(baseMapController.pane(), aircraftController.pane());
+        StackPane mapAndPlanes = new StackPane(baseMapController.pane(), aircraftPane);
 
         // panneau dont la zone centrale (center) est occupée par la table des aéronefs et la zone supérieure (top)
         // par la ligne d'état.
@@ -119,30 +156,45 @@ public final class Main extends Application {
         }});
 
 
-        //fil chargé d'obtenir les messages provenant des aéronefs.
-        Thread messageThread;
-        if (getParameters().getRaw().isEmpty()) {
-            //soit en démodulant le signal radio.
-            messageThread = threadFromDemodulator();
-        } else {
-            //soit en lisant les messages depuis un fichier.
-            messageThread = threadFromFile();
-        }
-        messageThread.setDaemon(true);
-        messageThread.start();
-
-        // Animation des aéronefs
+        // moteur d'ingestion obtenant et analysant les messages provenant des aéronefs sur ses propres fils
+        // d'exécution, soit en démodulant le signal radio, soit en lisant les messages depuis un fichier.
+        boolean correctErrors = getParameters().getRaw().contains(CORRECT_ERRORS);
+        List<String> files = getParameters().getUnnamed().stream().filter(arg -> !arg.equals(CORRECT_ERRORS)).toList();
+        AdsbDemodulator demodulator = files.isEmpty() ? new AdsbDemodulator(System.in, correctErrors) : null;
+        MessageSource source = demodulator != null
+                ? MessageSource.demodulating(demodulator)
+                : MessageSource.replaying(Path.of(files.get(0)));
+        lineController.correctionEnabledProperty().set(demodulator != null && correctErrors);
+        IngestionEngine engine = new IngestionEngine(source, metadata);
+        double snapshotRate = Double.parseDouble(
+                getParameters().getNamed().getOrDefault(SNAPSHOT_RATE, DEFAULT_SNAPSHOT_RATE));
+        if (snapshotRate <= 0) engine.addListener(messageQueue::add);
+        engine.start();
+
+        // Animation des aéronefs : les états sont mis à jour soit à partir d'instantanés publiés à fréquence fixe,
+        // soit message par message si cette fréquence est nulle.
         new AnimationTimer() {
+            private final long publicationPeriod = snapshotRate > 0 ? (long) (SECOND / snapshotRate) : 0;
+            private long publication;
+
             @Override
             public void handle(long now) {
-                try {
-                    while (!messageQueue.isEmpty()) {
-                        Message m = MessageParser.parse(messageQueue.remove());
-                        if (m != null) aircraftStateManager.updateWithMessage(m);
+                lineController.messageCountProperty().set(engine.messageCount());
+                if (demodulator != null) {
+                    lineController.correctedMessageCountProperty().set(demodulator.correctedMessageCount());
+                }
+                if (engine.failure() != null && lineController.sourceFailureProperty().get() == null) {
+                    lineController.sourceFailureProperty().set(engine.failure().toString());
+                }
+                if (publicationPeriod > 0) {
+                    if (now - publication >= publicationPeriod) {
+                        aircraftStateManager.updateWithSnapshots(engine.pollUpdates());
+                        publication = now;
                     }
-                    lineController.messageCountProperty().set(++counter);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
+                    return;
+                }
+                while (!messageQueue.isEmpty()) {
+                    aircraftStateManager.updateWithMessage(messageQueue.remove());
                 }
                 if (now - purge >= SECOND) {
                     aircraftStateManager.purge();
@@ -162,63 +214,17 @@ public final class Main extends Application {
     }
 
 
-    // la méthode lit la totalité des messages du fichier binaire fourni, et les retourne dans une liste
-    private List<RawMessage> readAllMessages(String fileName)
-            throws IOException {
-        List<RawMessage> allMessages = new LinkedList<>();
-        try (DataInputStream s = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
-            byte[] bytes = new byte[RawMessage.LENGTH];
-            while (true) {
-                long timeStampNs = s.readLong();
-                int bytesRead = s.readNBytes(bytes, 0, bytes.length);
-                assert bytesRead == RawMessage.LENGTH;
-                ByteString message = new ByteString(bytes);
-                Message parsedMessage = MessageParser.parse(new RawMessage(timeStampNs, message));
-                if (parsedMessage != null) {
-                    allMessages.add(new RawMessage(timeStampNs, message));
-                }
-            }
-        } catch (EOFException e) {
-        }
-        return unmodifiableList(allMessages);
+    // Cette méthode retourne la mémoire de l'atlas des icônes, donnée en mégaoctets, ou celle par défaut
+    private static long spriteCacheBytes(String megabytes) {
+        return megabytes == null
+                ? AircraftSpriteAtlas.DEFAULT_MAX_BYTES
+                : (long) (Double.parseDouble(megabytes) * MEGABYTE);
     }
 
-    //Methode retournant un thread en lisant les messages depuis un fichier.
-    private Thread threadFromFile() {
-        return new Thread(() -> {
-            long begin = System.currentTimeMillis();
-            try {
-                List<RawMessage> list = readAllMessages(getParameters().getRaw().get(0));
-                for (RawMessage message : list) {
-                    long dt = System.currentTimeMillis() - begin;
-                    if (MessageParser.parse(message) != null) {
-                        if ((MessageParser.parse(message).timeStampNs() / CONVERSION - dt) >= 0) {
-                            Thread.sleep((MessageParser.parse(message).timeStampNs() / CONVERSION - dt));
-                            messageQueue.add(message);
-                        }
-                    }
-                }
-            } catch (IOException | InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        });
-    }
 
-    // Methode retournant un thread en démodulant les messages.
-    private Thread threadFromDemodulator() {
-        return new Thread(() -> {
-            try {
-                AdsbDemodulator demodulator = new AdsbDemodulator(System.in);
-                while (true) {
-                    RawMessage message = demodulator.nextMessage();
-                    if (message != null) {
-                        messageQueue.add(message);
-                    }
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
+    // Cette méthode retourne le niveau de zoom maximal des regroupements d'aéronefs donné, ou celui par défaut
+    private static int clusterMaxZoom(String zoom) {
+        return zoom == null ? AircraftCanvasController.DEFAULT_CLUSTER_MAX_ZOOM : Integer.parseInt(zoom);
     }
 
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package ch.epfl.javions.gui;
 
+import ch.epfl.javions.GeoPos;
 import ch.epfl.javions.Math2;
 import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.WebMercator;
 
 import javafx.beans.property.*;
 
@@ -15,8 +17,8 @@ import javafx.beans.property.*;
  */
 public final class MapParameters {
 
-    private static final int ZOOM_MIN = 6;
-    private static final int ZOOM_MAX = 19;
+    static final int ZOOM_MIN = 6;
+    static final int ZOOM_MAX = 19;
     private final IntegerProperty zoom;
     private final DoubleProperty minX;
     private final DoubleProperty minY;
@@ -159,4 +161,22 @@ public final class MapParameters {
     }
 
 
+    /**
+     * Cette méthode retourne vrai si et seulement si la position donnée se trouve dans la portion visible de la carte,
+     * de dimensions données, élargie de la marge donnée de chaque côté
+     *
+     * @param position la position, non nulle
+     * @param width    la largeur de la portion visible, en pixels
+     * @param height   la hauteur de la portion visible, en pixels
+     * @param margin   la marge, en pixels
+     * @return vrai ssi la position est visible, à la marge près
+     */
+    boolean isVisible(GeoPos position, double width, double height, double margin) {
+        double x = WebMercator.x(getZoom(), position.longitude()) - getMinX();
+        if (x < -margin || x > width + margin) return false;
+        double y = WebMercator.y(getZoom(), position.latitude()) - getMinY();
+        return -margin <= y && y <= height + margin;
+    }
+
+
 }
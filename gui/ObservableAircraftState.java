@@ -5,9 +5,8 @@ import ch.epfl.javions.adsb.AircraftStateSetter;
 import ch.epfl.javions.adsb.CallSign;
 import ch.epfl.javions.aircraft.AircraftData;
 import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.engine.AircraftSnapshot;
 import javafx.beans.property.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 
 
 /**
@@ -19,16 +18,16 @@ import javafx.collections.ObservableList;
 
 public final class ObservableAircraftState implements AircraftStateSetter {
     private final IcaoAddress icaoAddress;
-    private final AircraftData data;
+    private final ObjectProperty<AircraftData> data;
     private final LongProperty lastMessageTimeStampNs;
     private final IntegerProperty category;
     private final ObjectProperty<CallSign> callSign;
     private final ObjectProperty<GeoPos> position;
-    private final ObservableList<AirbornePos> trajectory;
+    private final TrajectoryBuffer trajectory;
+    private final LongProperty trajectoryVersion;
     private final DoubleProperty altitude;
     private final DoubleProperty velocity;
     private final DoubleProperty trackOrHeading;
-    private final ObservableList<AirbornePos> unmodifiableTrajectory;
 
 
 
@@ -39,27 +38,30 @@ public final class ObservableAircraftState implements AircraftStateSetter {
      * @param data        les caractéristiques fixes de cet aéronef, provenant de la base de données mictronics.
      */
     public ObservableAircraftState(IcaoAddress icaoAddress, AircraftData data) {
+        this(icaoAddress, data, new TrajectoryBuffer());
+    }
+
+
+    /**
+     * Le constructeur public de la classe ObservableAircraftState, dont la trajectoire est mémorisée dans le tampon
+     * donné, configuré selon les besoins
+     *
+     * @param icaoAddress l'adresse OACI de l'aéronef
+     * @param data        les caractéristiques fixes de cet aéronef, provenant de la base de données mictronics.
+     * @param trajectory  le tampon, vide, dans lequel mémoriser la trajectoire
+     */
+    public ObservableAircraftState(IcaoAddress icaoAddress, AircraftData data, TrajectoryBuffer trajectory) {
         this.icaoAddress = icaoAddress;
-        this.data = data;
+        this.data = new SimpleObjectProperty<>(data);
         lastMessageTimeStampNs = new SimpleLongProperty();
         category = new SimpleIntegerProperty();
         callSign = new SimpleObjectProperty<>();
         position = new SimpleObjectProperty<>();
-        trajectory = FXCollections.observableArrayList();
+        this.trajectory = trajectory;
+        trajectoryVersion = new SimpleLongProperty();
         altitude = new SimpleDoubleProperty();
         velocity = new SimpleDoubleProperty();
         trackOrHeading = new SimpleDoubleProperty();
-        unmodifiableTrajectory = FXCollections.unmodifiableObservableList(trajectory);
-    }
-
-
-    /**
-     * Un enregistrement public, AirbornePos, imbriqué dans ObservableAircraftState.
-     *
-     * @param position la position de l'aéronef
-     * @param altitude l'altitude de l'aéronef
-     */
-    public record AirbornePos(GeoPos position, double altitude) {
     }
 
 
@@ -76,10 +78,22 @@ public final class ObservableAircraftState implements AircraftStateSetter {
     /**
      * Un getter public de la data de l'aéronef
      *
-     * @return les données de l'aéronef encapsulées dans la classe AircraftData
+     * @return les données de l'aéronef encapsulées dans la classe AircraftData, ou null si elles ne sont pas (encore)
+     * connues
      */
     public AircraftData getData() {
-        return data;
+        return data.get();
+    }
+
+
+    /**
+     * Un setter public des données de l'aéronef, appelé lorsque la recherche asynchrone dans la base de données
+     * se termine
+     *
+     * @param data les données de l'aéronef
+     */
+    public void setData(AircraftData data) {
+        this.data.set(data);
     }
 
 
@@ -154,12 +168,23 @@ public final class ObservableAircraftState implements AircraftStateSetter {
 
 
     /**
-     * Cette méthode retourne une liste observable non modifiable (ObservableList) de type AirbornePos
+     * Cette méthode retourne la trajectoire de l'aéronef, qui ne doit être lue que sur le fil de JavaFX ; ses
+     * modifications se signalent par un changement de trajectoryVersionProperty
      *
      * @return la trajectoire de l'aéronef
      */
-    public ObservableList<AirbornePos> getUnmodifiableTrajectory() {
-        return unmodifiableTrajectory;
+    public TrajectoryBuffer getTrajectory() {
+        return trajectory;
+    }
+
+
+    /**
+     * Cette méthode public permet d'observer les modifications de la trajectoire
+     *
+     * @return une propriété en lecture seule, dont la valeur change à chaque modification de la trajectoire
+     */
+    public ReadOnlyLongProperty trajectoryVersionProperty() {
+        return trajectoryVersion;
     }
 
 
@@ -203,7 +228,7 @@ public final class ObservableAircraftState implements AircraftStateSetter {
      */
     @Override
     public void setPosition(GeoPos position) {
-        trajectory.add(new AirbornePos(position, getAltitude()));
+        appendToTrajectory(position, getAltitude());
         this.position.set(position);
     }
 
@@ -215,15 +240,24 @@ public final class ObservableAircraftState implements AircraftStateSetter {
      */
     @Override
     public void setAltitude(double altitude) {
-        if (getPosition() != null) {
-            AirbornePos last= trajectory.get(trajectory.size() - 1);
-            if (getUnmodifiableTrajectory().isEmpty()) {
-                trajectory.set(trajectory.size() - 1, new AirbornePos(getPosition(), altitude));
-            } else if (!(last.equals(new AirbornePos(getPosition(), altitude))))
-                trajectory.add(new AirbornePos(getPosition(), altitude));
+        GeoPos position = getPosition();
+        if (position != null) {
+            int last = trajectory.size() - 1;
+            if (trajectory.isEmpty() || trajectory.longitudeT32(last) != position.longitudeT32()
+                    || trajectory.latitudeT32(last) != position.latitudeT32()
+                    || Double.compare(trajectory.altitude(last), altitude) != 0) {
+                appendToTrajectory(position, altitude);
             }
-        this.altitude.setValue(altitude);
         }
+        this.altitude.setValue(altitude);
+    }
+
+
+    // Cette méthode ajoute un point à la trajectoire et signale sa modification
+    private void appendToTrajectory(GeoPos position, double altitude) {
+        trajectory.append(position, altitude, getLastMessageTimeStampNs());
+        trajectoryVersion.set(trajectoryVersion.get() + 1);
+    }
 
 
     /**
@@ -248,6 +282,26 @@ public final class ObservableAircraftState implements AircraftStateSetter {
     }
 
 
+    /**
+     * Cette méthode public met à jour l'état en une seule fois à partir d'un instantané. Seules les propriétés dont
+     * la valeur a changé sont modifiées, et la trajectoire n'est prolongée que si l'altitude ou la position a changé.
+     *
+     * @param snapshot l'instantané de l'état de l'aéronef
+     */
+    public void apply(AircraftSnapshot snapshot) {
+        if (snapshot.data() != null) setData(snapshot.data());
+        setLastMessageTimeStampNs(snapshot.lastMessageTimeStampNs());
+        setCategory(snapshot.category());
+        setCallSign(snapshot.callSign());
+        setVelocity(snapshot.velocity());
+        setTrackOrHeading(snapshot.trackOrHeading());
+        if (Double.compare(getAltitude(), snapshot.altitude()) != 0) setAltitude(snapshot.altitude());
+        if (snapshot.position() != null && !snapshot.position().equals(getPosition())) {
+            setPosition(snapshot.position());
+        }
+    }
+
+
     /**
      * Cette méthode public permet d'observer les changements de la valeur de l'objet CallSign sans la possibilité de
      * la modifier
@@ -259,6 +313,16 @@ public final class ObservableAircraftState implements AircraftStateSetter {
     }
 
 
+    /**
+     * Cette méthode public permet d'observer l'arrivée des données de l'aéronef sans la possibilité de les modifier
+     *
+     * @return une propriété en lecture seule (ReadOnlyObjectProperty), associée aux données de l'aéronef
+     */
+    public ReadOnlyObjectProperty<AircraftData> dataProperty() {
+        return data;
+    }
+
+
     /**
      * Cette méthode public permet d'observer les changements de la valeur de l'objet GeoPos sans la possibilité de la
      * modifier
@@ -1,5 +1,6 @@
 package ch.epfl.javions.gui;
 
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.text.Text;
@@ -15,6 +16,9 @@ public final class StatusLineController {
     private final BorderPane pane;
     private final IntegerProperty aircraftCountProperty;
     private final LongProperty messageCountProperty;
+    private final LongProperty correctedMessageCountProperty;
+    private final BooleanProperty correctionEnabledProperty;
+    private final StringProperty sourceFailureProperty;
 
 
     /**
@@ -25,14 +29,23 @@ public final class StatusLineController {
         Text messageCountText = new Text();
         aircraftCountProperty = new SimpleIntegerProperty();
         messageCountProperty = new SimpleLongProperty();
-        pane = new BorderPane(null, null, messageCountText, null, aircraftCountText);
+        correctedMessageCountProperty = new SimpleLongProperty();
+        correctionEnabledProperty = new SimpleBooleanProperty();
+        sourceFailureProperty = new SimpleStringProperty();
+        Text sourceFailureText = new Text();
+        pane = new BorderPane(sourceFailureText, null, messageCountText, null, aircraftCountText);
         pane.getStyleClass().add("status.css");
 
         // bindings
         aircraftCountText.textProperty().bind(
                 aircraftCountProperty.asString("Aéronefs visibles : %s"));
-        messageCountText.textProperty().bind(
-                messageCountProperty.asString("Messages reçus : %s"));
+        messageCountText.textProperty().bind(Bindings.when(correctionEnabledProperty)
+                .then(Bindings.format("Messages reçus : %d (corrigés : %d)",
+                        messageCountProperty, correctedMessageCountProperty))
+                .otherwise(messageCountProperty.asString("Messages reçus : %s")));
+        sourceFailureText.textProperty().bind(Bindings.when(sourceFailureProperty.isNull())
+                .then("")
+                .otherwise(Bindings.concat("Source interrompue : ", sourceFailureProperty)));
     }
 
     /**
@@ -62,4 +75,34 @@ public final class StatusLineController {
     public LongProperty messageCountProperty() {
         return messageCountProperty;
     }
-}
\ No newline at end of file
+
+    /**
+     * Cette méthode public retourne la propriété (modifiable) contenant le nombre de messages dont une erreur
+     * d'un seul bit a été corrigée depuis le début de l'exécution du programme.
+     *
+     * @return correctedMessageCountProperty.
+     */
+    public LongProperty correctedMessageCountProperty() {
+        return correctedMessageCountProperty;
+    }
+
+    /**
+     * Cette méthode public retourne la propriété (modifiable) indiquant si la correction des erreurs est active,
+     * le nombre de messages corrigés n'étant affiché que dans ce cas.
+     *
+     * @return correctionEnabledProperty.
+     */
+    public BooleanProperty correctionEnabledProperty() {
+        return correctionEnabledProperty;
+    }
+
+    /**
+     * Cette méthode public retourne la propriété (modifiable) contenant la description de l'erreur ayant
+     * interrompu la lecture de la source des messages, ou null si celle-ci n'a pas échoué.
+     *
+     * @return sourceFailureProperty.
+     */
+    public StringProperty sourceFailureProperty() {
+        return sourceFailureProperty;
+    }
+}
@@ -4,15 +4,36 @@ import ch.epfl.javions.Preconditions;
 import javafx.scene.image.Image;
 
 import java.io.*;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.*;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * La classe TileManager représente un gestionnaire de tuiles OSM.
+ * Les tuiles peuvent être obtenues de manière synchrone (imageForTileAt), ou de manière asynchrone
+ * (loadImageForTileAt) : dans ce cas, les tuiles absentes du cache mémoire sont lues sur le disque ou téléchargées
+ * par un nombre borné de fils d'exécution dédiés, et deux demandes simultanées de la même tuile partagent le même
+ * résultat ; les demandes les plus récentes sont traitées en premier. Des tuiles peuvent aussi être préchargées
+ * (prefetchImageForTileAt) : ces demandes ne sont traitées qu'en l'absence de demandes ordinaires, et leur nombre
+ * simultané est borné par MAX_PREFETCHES ; une action peut être exécutée à la fin de chacun d'eux, par exemple pour
+ * reprendre des préchargements interrompus par cette limite. Le cache mémoire contient au moins CACHE_SIZE tuiles, et sa capacité peut être augmentée selon la taille
+ * de la portion visible, afin que les tuiles préchargées n'en chassent pas d'autres avant d'être affichées.
+ * Le serveur de tuiles peut être désigné par une URI complète, par exemple celle d'un serveur local.
  *
  * @author Marwa Chiguer (325221)
  * @author Imane Oujja (344332)
@@ -22,9 +43,55 @@ public final class TileManager {
     private static final int CACHE_SIZE = 100;
     public static final String PNG = ".png";
     public static final String JAVIONS = "Javions";
+    public static final String HTTPS = "https://";
+    public static final int DEFAULT_THREADS = 2;
+    public static final int MAX_PREFETCHES = 32;
+    private static final String THREAD_NAME = "javions-tiles-";
+    private static final int URGENT = 0;
+    private static final int PREFETCH = 1;
     private final Path diskCachePath;
     private final String tileServer;
+    private final String serverUrl;
     private final Map<TileId, Image> memoryCache;
+    private final ConcurrentMap<TileId, Request> pending = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger prefetches = new AtomicInteger();
+    private int cacheCapacity = CACHE_SIZE;
+    private volatile Runnable onPrefetchFinished;
+
+    // une demande de tuile en cours ; elle peut être confiée plusieurs fois au fil d'exécution, lorsqu'un
+    // préchargement devient urgent, mais n'est effectuée qu'une fois
+    private static final class Request {
+        private final CompletableFuture<Image> future = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final boolean prefetch;
+        private volatile boolean urgent;
+
+        private Request(boolean prefetch) {
+            this.prefetch = prefetch;
+            this.urgent = !prefetch;
+        }
+    }
+
+    // une tâche des fils d'exécution, ordonnée par priorité puis, pour les demandes urgentes, de la plus récente à
+    // la plus ancienne : après un déplacement rapide de la carte, les tuiles visibles passent ainsi avant celles,
+    // demandées plus tôt, qui ne le sont plus. Les préchargements restent traités dans leur ordre d'arrivée, qui
+    // est celui de leur proximité au centre de la portion visible.
+    private record Task(int priority, long sequence, Runnable action) implements Runnable, Comparable<Task> {
+        @Override
+        public void run() {
+            action.run();
+        }
+
+        @Override
+        public int compareTo(Task that) {
+            if (priority != that.priority) return Integer.compare(priority, that.priority);
+            return priority == URGENT
+                    ? Long.compare(that.sequence, sequence)
+                    : Long.compare(sequence, that.sequence);
+        }
+    }
 
 
     /**
@@ -34,12 +101,39 @@ public final class TileManager {
      * @param tileServer    le nom du serveur de tuile
      */
     public TileManager(Path diskCachePath, String tileServer) {
+        this(diskCachePath, URI.create(HTTPS + tileServer), DEFAULT_THREADS);
+    }
+
+
+    /**
+     * Le contructeur public de la classe TileManager, dont les tuiles sont obtenues auprès du serveur d'URI donnée,
+     * par exemple http://localhost:8080/tiles, et sont enregistrées sur le disque dans un dossier portant le nom
+     * de l'autorité de cette URI (localhost_8080 dans cet exemple)
+     *
+     * @param diskCachePath le chemin d'accès au dossier contenant le cache disque
+     * @param serverUri     l'URI du serveur de tuiles, à laquelle est ajouté le chemin zoom/x/y.png de chaque tuile
+     * @param threads       le nombre de fils d'exécution obtenant les tuiles de manière asynchrone
+     * @throws IllegalArgumentException si l'URI n'a pas d'autorité, ou si le nombre de fils n'est pas strictement
+     *                                  positif
+     */
+    public TileManager(Path diskCachePath, URI serverUri, int threads) {
+        Preconditions.checkArgument(serverUri.getAuthority() != null && threads > 0);
         this.diskCachePath = diskCachePath;
-        this.tileServer = tileServer;
+        // le port éventuel est séparé de l'hôte par un caractère valide dans un nom de dossier sur tous les systèmes
+        this.tileServer = serverUri.getAuthority().replace(':', '_');
+        String url = serverUri.toString();
+        this.serverUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         this.memoryCache = new LinkedHashMap<>(CACHE_SIZE, LOAD_FACTOR, true) {
             @Override
             protected boolean removeEldestEntry(Map.Entry<TileId, Image> eldest) {
-                return size() > CACHE_SIZE;
+                return size() > cacheCapacity;
             }
         };
         try {
@@ -89,7 +183,7 @@ public final class TileManager {
      * @throws IOException
      */
     public Image imageForTileAt(TileId id) throws IOException {
-        Image image = memoryCache.get(id);
+        Image image = cachedImageForTileAt(id);
         if (image != null) {
             return image;
         }
@@ -105,7 +199,7 @@ public final class TileManager {
         }
 
 
-        URL url = new URL("https://" + tileServer + "/" +
+        URL url = new URL(serverUrl + "/" +
                 id.zoom + "/" + id.x + "/" + id.y + PNG);
         URLConnection c = url.openConnection();
         c.setRequestProperty("User-Agent", JAVIONS);
@@ -121,10 +215,142 @@ public final class TileManager {
         }
     }
 
+    /**
+     * Cette méthode retourne l'image de la tuile donnée si elle se trouve dans le cache mémoire, sans jamais
+     * accéder au disque ni au réseau
+     *
+     * @param id l'identité d'une tuile
+     * @return son image, ou null si elle ne se trouve pas dans le cache mémoire
+     */
+    public Image cachedImageForTileAt(TileId id) {
+        synchronized (memoryCache) {
+            return memoryCache.get(id);
+        }
+    }
+
+
+    /**
+     * Cette méthode obtient l'image de la tuile donnée de manière asynchrone. Si elle se trouve dans le cache
+     * mémoire, le résultat est immédiatement disponible, sinon l'image est lue sur le disque ou téléchargée par
+     * les fils d'exécution du gestionnaire ; une tuile déjà demandée n'est pas demandée une seconde fois.
+     *
+     * @param id l'identité d'une tuile
+     * @return le futur résultat : l'image de la tuile, ou une erreur d'entrée/sortie
+     */
+    public CompletableFuture<Image> loadImageForTileAt(TileId id) {
+        Image image = cachedImageForTileAt(id);
+        if (image != null) return CompletableFuture.completedFuture(image);
+
+        Request request = new Request(false);
+        Request existing = pending.putIfAbsent(id, request);
+        if (existing == null) {
+            schedule(URGENT, id, request);
+            return request.future;
+        }
+        // un préchargement encore en attente est avancé avant les autres préchargements
+        if (!existing.urgent) {
+            existing.urgent = true;
+            schedule(URGENT, id, existing);
+        }
+        return existing.future;
+    }
+
+
+    /**
+     * Cette méthode précharge l'image de la tuile donnée dans le cache mémoire et sur le disque, de manière
+     * asynchrone et avec une priorité inférieure à celle des demandes de loadImageForTileAt
+     *
+     * @param id l'identité d'une tuile
+     * @return faux si et seulement si la tuile n'est ni en mémoire ni déjà demandée, et ne peut être préchargée car
+     * MAX_PREFETCHES préchargements sont déjà en cours
+     */
+    public boolean prefetchImageForTileAt(TileId id) {
+        if (cachedImageForTileAt(id) != null || pending.containsKey(id)) return true;
+        if (prefetches.get() >= MAX_PREFETCHES) return false;
+
+        Request request = new Request(true);
+        if (pending.putIfAbsent(id, request) == null) {
+            prefetches.incrementAndGet();
+            schedule(PREFETCH, id, request);
+        }
+        return true;
+    }
+
+
+    /**
+     * Cette méthode fixe l'action exécutée à la fin de chaque préchargement, réussi ou non, sur l'un des fils
+     * d'exécution du gestionnaire
+     *
+     * @param action l'action, ou null pour n'en exécuter aucune
+     */
+    public void setOnPrefetchFinished(Runnable action) {
+        onPrefetchFinished = action;
+    }
+
+
+    /**
+     * Cette méthode fixe le nombre de tuiles que peut contenir le cache mémoire, qui n'est toutefois jamais
+     * inférieur à CACHE_SIZE ; les tuiles les moins récemment utilisées en excès sont retirées
+     *
+     * @param tiles le nombre de tuiles
+     */
+    public void setMemoryCacheCapacity(int tiles) {
+        synchronized (memoryCache) {
+            cacheCapacity = Math.max(CACHE_SIZE, tiles);
+            Iterator<TileId> eldest = memoryCache.keySet().iterator();
+            while (memoryCache.size() > cacheCapacity) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+
+    //Cette méthode confie la demande donnée aux fils d'exécution, avec la priorité donnée
+    private void schedule(int priority, TileId id, Request request) {
+        try {
+            executor.execute(new Task(priority, sequence.getAndIncrement(), () -> {
+                if (request.started.compareAndSet(false, true)) load(id, request);
+            }));
+        } catch (RejectedExecutionException e) {
+            if (request.started.compareAndSet(false, true)) {
+                finish(id, request);
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+
+    //Cette méthode, exécutée par un fil du gestionnaire, obtient l'image de la tuile et termine la demande donnée
+    private void load(TileId id, Request request) {
+        try {
+            Image image = imageForTileAt(id);
+            finish(id, request);
+            request.future.complete(image);
+        } catch (Exception e) {
+            finish(id, request);
+            request.future.completeExceptionally(e);
+        }
+    }
+
+
+    //Cette méthode retire la demande donnée des demandes en cours
+    private void finish(TileId id, Request request) {
+        pending.remove(id, request);
+        if (request.prefetch) {
+            prefetches.decrementAndGet();
+            Runnable action = onPrefetchFinished;
+            if (action != null) action.run();
+        }
+    }
+
+
     //Cette méthode privée cree une instance d'image et la place dans le cache mémoire
     private Image imageInCacheMemory(byte[] tileBytes, TileId id) {
         Image image = new Image(new ByteArrayInputStream(tileBytes));
-        memoryCache.put(id, image);
+        synchronized (memoryCache) {
+            memoryCache.put(id, image);
+        }
         return image;
     }
 
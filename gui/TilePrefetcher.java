@@ -0,0 +1,173 @@
+package ch.epfl.javions.gui;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * La classe TilePrefetcher précharge les tuiles qui seront vraisemblablement affichées prochainement, afin que les
+ * déplacements et les changements de zoom de la carte trouvent leurs tuiles en mémoire ou sur le disque :
+ * <ul>
+ *     <li>un anneau de tuiles autour de la portion visible, élargi dans la direction du déplacement en cours selon
+ *     sa vitesse,</li>
+ *     <li>les tuiles des niveaux de zoom inférieur et supérieur couvrant la portion visible après un changement de
+ *     zoom autour du pointeur, qui est le point fixe des changements de zoom de la carte (molette de la souris,
+ *     clic sur un groupe d'aéronefs).</li>
+ * </ul>
+ * Les tuiles les plus proches du centre prévu de la portion visible sont préchargées en premier, et le niveau de
+ * zoom vers lequel la carte a été changée en dernier passe avant l'autre. Le nombre de préchargements simultanés
+ * est borné par TileManager : lorsque cette limite interrompt le préchargement, il doit être repris à la fin de
+ * l'un des préchargements en cours.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class TilePrefetcher {
+    private static final int PIXELS = BaseMapController.PIXELS;
+    private static final int RING = 1;
+    private static final int MAX_LOOKAHEAD_TILES = 3;
+    private static final double LOOKAHEAD_S = 0.5;
+    private static final double MAX_SAMPLE_INTERVAL_S = 0.5;
+    private static final double SMOOTHING = 0.5;
+    private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+    private final TileManager tileManager;
+    private final MapParameters parameters;
+    private final List<TileManager.TileId> candidates = new ArrayList<>();
+    private int lastZoom = -1;
+    private double lastMinX, lastMinY;
+    private long lastTimeNs;
+    private double velocityX, velocityY;
+    private int zoomDirection = 1;
+
+    /**
+     * Le constructeur de la classe TilePrefetcher
+     *
+     * @param tileManager le gestionnaire des tuiles à précharger
+     * @param parameters  les paramètres de la portion visible de la carte
+     */
+    TilePrefetcher(TileManager tileManager, MapParameters parameters) {
+        this.tileManager = tileManager;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Cette méthode met à jour la vitesse de déplacement de la carte si la portion visible a changé depuis l'appel
+     * précédent, puis précharge les tuiles proches de la portion visible ; elle doit être appelée après la demande
+     * des tuiles visibles, à chaque dessin de la carte
+     *
+     * @param width    la largeur de la portion visible, en pixels
+     * @param height   la hauteur de la portion visible, en pixels
+     * @param pointerX la coordonnée x de la dernière position connue du pointeur dans la portion visible
+     * @param pointerY la coordonnée y de la dernière position connue du pointeur dans la portion visible
+     * @return vrai ssi le préchargement a été interrompu par la limite du nombre de préchargements simultanés
+     */
+    boolean prefetch(double width, double height, double pointerX, double pointerY) {
+        int zoom = parameters.getZoom();
+        double minX = parameters.getMinX();
+        double minY = parameters.getMinY();
+        updateVelocity(zoom, minX, minY, System.nanoTime());
+
+        // portion visible prévue, dont les tuiles sont préchargées en premier
+        double aheadX = clamp(velocityX * LOOKAHEAD_S, MAX_LOOKAHEAD_TILES * PIXELS);
+        double aheadY = clamp(velocityY * LOOKAHEAD_S, MAX_LOOKAHEAD_TILES * PIXELS);
+        double centerX = minX + width / 2 + aheadX;
+        double centerY = minY + height / 2 + aheadY;
+
+        candidates.clear();
+        addRange(zoom,
+                Math.min(minX, minX + aheadX) - RING * PIXELS, Math.min(minY, minY + aheadY) - RING * PIXELS,
+                Math.max(minX, minX + aheadX) + width + RING * PIXELS,
+                Math.max(minY, minY + aheadY) + height + RING * PIXELS);
+        sortByDistance(centerX, centerY, 0);
+
+        // niveaux de zoom voisins, celui vers lequel la carte a été changée en dernier passant en premier
+        int first = candidates.size();
+        double pointerMapX = minX + pointerX;
+        double pointerMapY = minY + pointerY;
+        if (zoomDirection > 0) {
+            addZoomed(zoom + 1, pointerMapX, pointerMapY, pointerX, pointerY, width, height);
+            addZoomed(zoom - 1, pointerMapX, pointerMapY, pointerX, pointerY, width, height);
+        } else {
+            addZoomed(zoom - 1, pointerMapX, pointerMapY, pointerX, pointerY, width, height);
+            addZoomed(zoom + 1, pointerMapX, pointerMapY, pointerX, pointerY, width, height);
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            TileManager.TileId id = candidates.get(i);
+            if (i < first && isVisible(id, minX, minY, width, height)) continue;
+            if (!tileManager.prefetchImageForTileAt(id)) return true;
+        }
+        return false;
+    }
+
+    // Cette méthode met à jour la vitesse lissée du déplacement de la carte, en pixels par seconde ; seuls les
+    // changements de la portion visible en sont des échantillons, et non les dessins dus à l'arrivée d'une tuile ou
+    // à la reprise du préchargement, qui réduiraient la vitesse à chaque appel. Une portion visible inchangée depuis
+    // plus que l'intervalle maximal signifie en revanche que la carte est immobile.
+    private void updateVelocity(int zoom, double minX, double minY, long timeNs) {
+        double interval = (timeNs - lastTimeNs) / NANOSECONDS_PER_SECOND;
+        if (zoom == lastZoom && minX == lastMinX && minY == lastMinY) {
+            if (interval > MAX_SAMPLE_INTERVAL_S) {
+                velocityX = 0;
+                velocityY = 0;
+            }
+            return;
+        }
+        if (zoom != lastZoom) {
+            if (lastZoom >= 0) zoomDirection = Integer.signum(zoom - lastZoom);
+            velocityX = 0;
+            velocityY = 0;
+        } else if (interval > MAX_SAMPLE_INTERVAL_S) {
+            velocityX = 0;
+            velocityY = 0;
+        } else if (interval > 0) {
+            velocityX = SMOOTHING * velocityX + (1 - SMOOTHING) * (minX - lastMinX) / interval;
+            velocityY = SMOOTHING * velocityY + (1 - SMOOTHING) * (minY - lastMinY) / interval;
+        }
+        lastZoom = zoom;
+        lastMinX = minX;
+        lastMinY = minY;
+        lastTimeNs = timeNs;
+    }
+
+    // Cette méthode ajoute aux candidates les tuiles de la portion visible au niveau de zoom donné, voisin du
+    // niveau actuel, après un changement de zoom laissant fixe le point de la carte situé sous le pointeur
+    private void addZoomed(int newZoom, double pointerMapX, double pointerMapY, double pointerX, double pointerY,
+                           double width, double height) {
+        if (newZoom < MapParameters.ZOOM_MIN || newZoom > MapParameters.ZOOM_MAX) return;
+        double scale = newZoom > parameters.getZoom() ? 2 : 0.5;
+        double minX = scale * pointerMapX - pointerX;
+        double minY = scale * pointerMapY - pointerY;
+        int start = candidates.size();
+        addRange(newZoom, minX, minY, minX + width, minY + height);
+        sortByDistance(scale * pointerMapX, scale * pointerMapY, start);
+    }
+
+
+    // Cette méthode ajoute aux candidates les tuiles valides du niveau donné couvrant le rectangle donné
+    private void addRange(int zoom, double minX, double minY, double maxX, double maxY) {
+        for (int x = (int) Math.floor(minX / PIXELS); x < maxX / PIXELS; x++) {
+            for (int y = (int) Math.floor(minY / PIXELS); y < maxY / PIXELS; y++) {
+                if (TileManager.TileId.isValid(zoom, x, y)) candidates.add(new TileManager.TileId(zoom, x, y));
+            }
+        }
+    }
+
+    // Cette méthode trie les candidates à partir de l'index donné par distance croissante au point donné
+    private void sortByDistance(double x, double y, int from) {
+        candidates.subList(from, candidates.size()).sort(Comparator.comparingDouble(id ->
+                Math.hypot((id.x() + 0.5) * PIXELS - x, (id.y() + 0.5) * PIXELS - y)));
+    }
+
+    // Cette méthode retourne vrai ssi la tuile donnée est visible, et donc déjà demandée par la carte
+    private static boolean isVisible(TileManager.TileId id, double minX, double minY, double width, double height) {
+        return (id.x() + 1) * PIXELS > minX && id.x() * PIXELS < minX + width
+                && (id.y() + 1) * PIXELS > minY && id.y() * PIXELS < minY + height;
+    }
+
+    // Cette méthode borne la valeur donnée à l'intervalle [-limit, limit]
+    private static double clamp(double value, double limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+}
@@ -0,0 +1,213 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.Units;
+
+/**
+ * La classe TrajectoryBuffer publique et finale mémorise la trajectoire d'un aéronef dans un tampon circulaire de
+ * taille bornée, formé de tableaux de types primitifs : longitude et latitude en t32, altitude et horodatage.
+ * Les points plus anciens que l'âge maximal, ou en excès du nombre maximal, sont oubliés.
+ * <p>
+ * La trajectoire est simplifiée au fur et à mesure : le dernier point est provisoire, et il est remplacé par le
+ * point suivant tant que tous les points ainsi écartés depuis l'avant-dernier point restent à une distance
+ * inférieure à la tolérance (horizontale et verticale) du segment joignant cet avant-dernier point au nouveau.
+ * Les portions rectilignes se réduisent ainsi à un unique segment, avec une erreur bornée par la tolérance.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+public final class TrajectoryBuffer {
+    public static final int DEFAULT_MAX_POINTS = 1 << 10;
+    public static final long DEFAULT_MAX_AGE_NS = 3_600_000_000_000L;
+    public static final double DEFAULT_TOLERANCE = 25;
+    public static final double DEFAULT_ALTITUDE_TOLERANCE = 25;
+    private static final int MIN_POINTS = 3;
+    private static final int MAX_WINDOW = 64;
+    private static final double EARTH_RADIUS = 6_371_000;
+
+    private final long maxAgeNs;
+    private final double toleranceT32;
+    private final double altitudeTolerance;
+
+    private final int[] longitudes;
+    private final int[] latitudes;
+    private final double[] altitudes;
+    private final long[] timeStamps;
+    private int head;
+    private int size;
+    private long firstIndex;
+
+    // les points écartés depuis l'avant-dernier point, contre lesquels chaque nouveau segment est vérifié
+    private final int[] windowLongitudes = new int[MAX_WINDOW];
+    private final int[] windowLatitudes = new int[MAX_WINDOW];
+    private final double[] windowAltitudes = new double[MAX_WINDOW];
+    private int windowSize;
+
+
+    /**
+     * Le constructeur public de la classe TrajectoryBuffer, avec les bornes et tolérances par défaut
+     */
+    public TrajectoryBuffer() {
+        this(DEFAULT_MAX_POINTS, DEFAULT_MAX_AGE_NS, DEFAULT_TOLERANCE, DEFAULT_ALTITUDE_TOLERANCE);
+    }
+
+    /**
+     * Le constructeur public de la classe TrajectoryBuffer
+     *
+     * @param maxPoints         le nombre maximal de points mémorisés, au moins 3
+     * @param maxAgeNs          l'âge maximal des points, en nanosecondes, mesuré depuis le dernier point
+     * @param tolerance         l'écart horizontal maximal toléré par la simplification, en mètres
+     * @param altitudeTolerance l'écart d'altitude maximal toléré par la simplification, en mètres
+     * @throws IllegalArgumentException si l'un des arguments est invalide
+     */
+    public TrajectoryBuffer(int maxPoints, long maxAgeNs, double tolerance, double altitudeTolerance) {
+        Preconditions.checkArgument(maxPoints >= MIN_POINTS && maxAgeNs > 0
+                && tolerance >= 0 && altitudeTolerance >= 0);
+        this.maxAgeNs = maxAgeNs;
+        this.toleranceT32 = Units.convert(tolerance / EARTH_RADIUS, Units.Angle.RADIAN, Units.Angle.T32);
+        this.altitudeTolerance = altitudeTolerance;
+        longitudes = new int[maxPoints];
+        latitudes = new int[maxPoints];
+        altitudes = new double[maxPoints];
+        timeStamps = new long[maxPoints];
+    }
+
+    /**
+     * @return le nombre de points de la trajectoire
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cette méthode retourne le nombre de points oubliés depuis la création de la trajectoire, qui est aussi
+     * l'index absolu de son premier point ; elle permet de mettre à jour un rendu sans le refaire entièrement
+     *
+     * @return l'index absolu du premier point de la trajectoire
+     */
+    public long firstIndex() {
+        return firstIndex;
+    }
+
+    /**
+     * @return vrai si et seulement si la trajectoire ne contient aucun point
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i l'index d'un point, du plus ancien (0) au plus récent
+     * @return la longitude de ce point, en t32
+     */
+    public int longitudeT32(int i) {
+        return longitudes[slot(i)];
+    }
+
+    /**
+     * @param i l'index d'un point, du plus ancien (0) au plus récent
+     * @return la latitude de ce point, en t32
+     */
+    public int latitudeT32(int i) {
+        return latitudes[slot(i)];
+    }
+
+    /**
+     * @param i l'index d'un point, du plus ancien (0) au plus récent
+     * @return l'altitude de ce point, en mètres
+     */
+    public double altitude(int i) {
+        return altitudes[slot(i)];
+    }
+
+    /**
+     * @param i l'index d'un point, du plus ancien (0) au plus récent
+     * @return l'horodatage de ce point, en nanosecondes
+     */
+    public long timeStampNs(int i) {
+        return timeStamps[slot(i)];
+    }
+
+    // Cette méthode retourne l'index, dans les tableaux, du point d'index donné dans la trajectoire
+    private int slot(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return (head + i) % longitudes.length;
+    }
+
+    /**
+     * Cette méthode ajoute un point à la fin de la trajectoire, en simplifiant celle-ci et en oubliant les points
+     * trop anciens ou en excès
+     *
+     * @param position    la position du point
+     * @param altitude    l'altitude du point, en mètres
+     * @param timeStampNs l'horodatage du point, en nanosecondes
+     */
+    void append(GeoPos position, double altitude, long timeStampNs) {
+        int longitude = position.longitudeT32();
+        int latitude = position.latitudeT32();
+        if (size >= 2 && windowSize < MAX_WINDOW && canReplaceLast(longitude, latitude, altitude)) {
+            int last = slot(size - 1);
+            windowLongitudes[windowSize] = longitudes[last];
+            windowLatitudes[windowSize] = latitudes[last];
+            windowAltitudes[windowSize] = altitudes[last];
+            windowSize += 1;
+            set(last, longitude, latitude, altitude, timeStampNs);
+        } else {
+            windowSize = 0;
+            if (size == longitudes.length) removeFirst();
+            set((head + size) % longitudes.length, longitude, latitude, altitude, timeStampNs);
+            size += 1;
+        }
+        while (size > 1 && timeStampNs - timeStamps[head] > maxAgeNs) removeFirst();
+    }
+
+    // Cette méthode retourne vrai ssi le dernier point, et tous ceux déjà écartés depuis l'avant-dernier, restent
+    // assez proches du segment joignant l'avant-dernier point au nouveau point donné
+    private boolean canReplaceLast(int longitude, int latitude, double altitude) {
+        int anchor = slot(size - 2);
+        int last = slot(size - 1);
+        if (!isClose(anchor, longitude, latitude, altitude,
+                longitudes[last], latitudes[last], altitudes[last])) return false;
+        for (int i = 0; i < windowSize; i++) {
+            if (!isClose(anchor, longitude, latitude, altitude,
+                    windowLongitudes[i], windowLatitudes[i], windowAltitudes[i])) return false;
+        }
+        return true;
+    }
+
+    // Cette méthode retourne vrai ssi le point (pLongitude, pLatitude, pAltitude) est à une distance inférieure à la
+    // tolérance du segment joignant le point d'index anchor au point (longitude, latitude, altitude)
+    private boolean isClose(int anchor, int longitude, int latitude, double altitude,
+                            int pLongitude, int pLatitude, double pAltitude) {
+        double scale = Math.cos(Units.convert(latitudes[anchor], Units.Angle.T32, Units.Angle.RADIAN));
+        // les différences entières de longitude se replient correctement de part et d'autre de l'antiméridien
+        double dx = (longitude - longitudes[anchor]) * scale;
+        double dy = latitude - latitudes[anchor];
+        double px = (pLongitude - longitudes[anchor]) * scale;
+        double py = pLatitude - latitudes[anchor];
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        double expectedAltitude = altitudes[anchor] + t * (altitude - altitudes[anchor]);
+        return ex * ex + ey * ey <= toleranceT32 * toleranceT32
+                && Math.abs(pAltitude - expectedAltitude) <= altitudeTolerance;
+    }
+
+    // Cette méthode écrit le point donné à l'index donné des tableaux
+    private void set(int slot, int longitude, int latitude, double altitude, long timeStampNs) {
+        longitudes[slot] = longitude;
+        latitudes[slot] = latitude;
+        altitudes[slot] = altitude;
+        timeStamps[slot] = timeStampNs;
+    }
+
+    // Cette méthode oublie le point le plus ancien
+    private void removeFirst() {
+        head = (head + 1) % longitudes.length;
+        size -= 1;
+        firstIndex += 1;
+        if (size < 2) windowSize = 0;
+    }
+}
@@ -0,0 +1,77 @@
+package ch.epfl.javions.gui;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.Stop;
+
+import static javafx.scene.paint.CycleMethod.NO_CYCLE;
+
+/**
+ * La classe TrajectoryPaints fournit la peinture des segments de la trajectoire d'un aéronef : la couleur de
+ * l'altitude si celle-ci est la même aux deux extrémités, sinon un dégradé de la couleur de l'altitude de départ à
+ * celle de l'altitude d'arrivée. Les altitudes sont arrondies à l'un des STEPS niveaux du dégradé, et chaque dégradé
+ * n'est créé qu'une fois, puis mémorisé ; une fois les dégradés utilisés créés, l'obtention d'une peinture
+ * n'effectue donc aucune allocation.
+ * <p>
+ * Les dégradés sont proportionnels, donc relatifs au rectangle englobant le segment, dont le segment est une
+ * diagonale : ils vont d'un coin à l'opposé, selon la direction du segment. Ils conviennent ainsi aussi bien à une
+ * ligne du graphe de scène qu'à un segment dessiné sur un canevas. Les peintures ne doivent être obtenues que depuis
+ * le fil d'exécution de JavaFX.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class TrajectoryPaints {
+    public static final int STEPS = 64;
+    private static final int DIRECTIONS = 4;
+
+    private final double colorConstant;
+    private final Color[] colors = new Color[STEPS];
+    private final LinearGradient[] gradients = new LinearGradient[STEPS * STEPS * DIRECTIONS];
+
+    /**
+     * Le constructeur de la classe TrajectoryPaints
+     *
+     * @param ramp          le dégradé de couleurs des altitudes
+     * @param colorConstant l'altitude, en mètres, correspondant à la dernière couleur du dégradé, la position d'une
+     *                      altitude dans le dégradé étant la racine cubique de son rapport à cette constante
+     */
+    TrajectoryPaints(ColorRamp ramp, double colorConstant) {
+        this.colorConstant = colorConstant;
+        for (int i = 0; i < STEPS; i++) colors[i] = ramp.at((double) i / (STEPS - 1));
+    }
+
+    /**
+     * Cette méthode retourne la peinture du segment joignant les deux points donnés
+     *
+     * @param startAltitude l'altitude du point de départ, en mètres
+     * @param endAltitude   l'altitude du point d'arrivée, en mètres
+     * @param dx            la différence des coordonnées x des points d'arrivée et de départ
+     * @param dy            la différence des coordonnées y des points d'arrivée et de départ
+     * @return la peinture du segment
+     */
+    Paint segment(double startAltitude, double endAltitude, double dx, double dy) {
+        int start = step(startAltitude);
+        int end = step(endAltitude);
+        if (start == end) return colors[end];
+
+        int direction = (dx < 0 ? 1 : 0) | (dy < 0 ? 2 : 0);
+        int key = (start * STEPS + end) * DIRECTIONS + direction;
+        LinearGradient gradient = gradients[key];
+        if (gradient == null) {
+            double startX = dx < 0 ? 1 : 0;
+            double startY = dy < 0 ? 1 : 0;
+            gradient = new LinearGradient(startX, startY, 1 - startX, 1 - startY, true, NO_CYCLE,
+                    new Stop(0, colors[start]), new Stop(1, colors[end]));
+            gradients[key] = gradient;
+        }
+        return gradient;
+    }
+
+    // Cette méthode retourne le niveau du dégradé correspondant à l'altitude donnée
+    private int step(double altitude) {
+        double position = Math.cbrt(altitude / colorConstant);
+        return (int) Math.round(Math.max(0, Math.min(1, position)) * (STEPS - 1));
+    }
+}
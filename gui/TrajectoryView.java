@@ -0,0 +1,106 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.Units;
+import ch.epfl.javions.WebMercator;
+import javafx.collections.ObservableList;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Line;
+
+/**
+ * La classe TrajectoryView représente le rendu de la trajectoire d'un aéronef, formé d'une ligne par segment.
+ * Ce rendu est mis à jour de manière incrémentale : seuls les segments ajoutés, oubliés ou dont l'extrémité a été
+ * déplacée par la simplification de la trajectoire sont modifiés, les autres lignes étant conservées. Lors d'un
+ * changement de niveau de zoom, les coordonnées déjà projetées sont simplement mises à l'échelle, la projection
+ * de Mercator étant proportionnelle à 2 puissance le niveau de zoom.
+ *
+ * @author Marwa Chiguer (325221)
+ * @author Imane Oujja (344332)
+ */
+final class TrajectoryView {
+    private final Group group;
+    private final TrajectoryPaints paints;
+    // index absolu, dans la trajectoire, du point de départ de la première ligne du groupe
+    private long firstLineIndex;
+    private int zoom = -1;
+
+    /**
+     * Le constructeur de la classe TrajectoryView
+     *
+     * @param group  le groupe, initialement vide, dans lequel dessiner les lignes de la trajectoire
+     * @param paints les peintures des segments de la trajectoire
+     */
+    TrajectoryView(Group group, TrajectoryPaints paints) {
+        this.group = group;
+        this.paints = paints;
+    }
+
+    /**
+     * Cette méthode met le rendu à jour pour qu'il corresponde à la trajectoire donnée au niveau de zoom donné
+     *
+     * @param trajectory la trajectoire de l'aéronef
+     * @param zoom       le niveau de zoom de la carte
+     */
+    void update(TrajectoryBuffer trajectory, int zoom) {
+        ObservableList<Node> lines = group.getChildren();
+        if (zoom != this.zoom) {
+            if (this.zoom >= 0) rescale(lines, Math.scalb(1d, zoom - this.zoom));
+            this.zoom = zoom;
+        }
+
+        // suppression des lignes dont le point de départ a été oublié
+        long first = trajectory.firstIndex();
+        int forgotten = (int) Math.min(lines.size(), Math.max(0, first - firstLineIndex));
+        if (forgotten > 0) {
+            lines.remove(0, forgotten);
+            firstLineIndex += forgotten;
+        }
+        if (lines.isEmpty()) firstLineIndex = first;
+
+        // la dernière ligne peut avoir été modifiée par la simplification, alors que sa fin était provisoire
+        long end = first + trajectory.size();
+        long synced = firstLineIndex + lines.size();
+        if (!lines.isEmpty() && synced < end) {
+            int index = (int) (synced - first);
+            draw((Line) lines.get(lines.size() - 1), trajectory, index - 1, index);
+        }
+
+        // ajout des lignes des nouveaux segments
+        for (long i = Math.max(synced + 1, first + 1); i < end; i++) {
+            int index = (int) (i - first);
+            Line line = new Line();
+            line.getStyleClass().add("trajectory Line");
+            draw(line, trajectory, index - 1, index);
+            lines.add(line);
+        }
+    }
+
+    /**
+     * Cette méthode vide le rendu, qui sera entièrement reconstruit lors de la prochaine mise à jour
+     */
+    void clear() {
+        group.getChildren().clear();
+        zoom = -1;
+    }
+
+    // Cette méthode met à l'échelle les coordonnées de toutes les lignes
+    private static void rescale(ObservableList<Node> lines, double factor) {
+        for (Node node : lines) {
+            Line line = (Line) node;
+            line.setStartX(line.getStartX() * factor);
+            line.setStartY(line.getStartY() * factor);
+            line.setEndX(line.getEndX() * factor);
+            line.setEndY(line.getEndY() * factor);
+        }
+    }
+
+    // Cette méthode place la ligne donnée sur le segment joignant les points d'index start et end de la trajectoire
+    private void draw(Line line, TrajectoryBuffer trajectory, int start, int end) {
+        line.setStartX(WebMercator.x(zoom, Units.convertFrom(trajectory.longitudeT32(start), Units.Angle.T32)));
+        line.setStartY(WebMercator.y(zoom, Units.convertFrom(trajectory.latitudeT32(start), Units.Angle.T32)));
+        line.setEndX(WebMercator.x(zoom, Units.convertFrom(trajectory.longitudeT32(end), Units.Angle.T32)));
+        line.setEndY(WebMercator.y(zoom, Units.convertFrom(trajectory.latitudeT32(end), Units.Angle.T32)));
+        line.setStroke(paints.segment(trajectory.altitude(start), trajectory.altitude(end),
+                line.getEndX() - line.getStartX(), line.getEndY() - line.getStartY()));
+    }
+}